@@ -1,5 +1,7 @@
 package com.example.ApiGateway;
 
+import com.example.ApiGateway.cache.ResponseCacheGatewayFilterFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cloud.gateway.route.RouteLocator;
@@ -10,6 +12,7 @@ import org.springframework.web.cors.reactive.CorsWebFilter;
 import org.springframework.web.cors.reactive.UrlBasedCorsConfigurationSource;
 
 import java.time.Duration;
+import java.util.List;
 
 @SpringBootApplication
 public class ApiGatewayApplication {
@@ -19,12 +22,19 @@ public class ApiGatewayApplication {
     }
 
     @Bean
-    public RouteLocator customRouteLocator(RouteLocatorBuilder builder) {
+    public RouteLocator customRouteLocator(RouteLocatorBuilder builder,
+                                           ResponseCacheGatewayFilterFactory responseCache,
+                                           @Value("${gateway.cache.patient-ttl:30s}") Duration patientCacheTtl,
+                                           @Value("${gateway.cache.queue-ttl:5s}") Duration queueCacheTtl) {
         return builder.routes()
                 // Patient Service Routes
                 .route("patient-service", r -> r
                         .path("/api/patients/**")
                         .filters(f -> f
+                                // Profiles by id only; search and clinical views always go downstream
+                                .filter(responseCache.apply(c -> c
+                                        .setTtl(patientCacheTtl)
+                                        .setPaths(List.of("/api/patients/PT*"))))
                                 .circuitBreaker(c -> c
                                         .setName("patientCircuitBreaker")
                                         .setFallbackUri("forward:/fallback/patient"))
@@ -52,10 +62,15 @@ public class ApiGatewayApplication {
                 .route("queue-service", r -> r
                         .path("/api/queue/**")
                         .filters(f -> f
+                                // Display-board polling; queue-service purges on every transition
+                                .filter(responseCache.apply(c -> c
+                                        .setTtl(queueCacheTtl)
+                                        .setPaths(List.of("/api/queue/status", "/api/queue/token/*"))))
                                 .circuitBreaker(c -> c
                                         .setName("queueCircuitBreaker")
                                         .setFallbackUri("forward:/fallback/queue"))
-                                .addRequestHeader("X-Service", "Queue"))
+                                .addRequestHeader("X-Service", "Queue")
+                                .rewritePath("/api/queue/(?<segment>.*)", "/API/QUEUE/${segment}"))
                         .uri("lb://QUEUE-SERVICE"))
 
                 // Appointment Service Routes
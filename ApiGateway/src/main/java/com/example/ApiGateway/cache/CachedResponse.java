@@ -0,0 +1,34 @@
+package com.example.ApiGateway.cache;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.util.DigestUtils;
+import org.springframework.util.MultiValueMap;
+
+import java.time.Duration;
+
+/**
+ * A 200 response held at the edge: the downstream headers worth replaying, the
+ * body, and an ETag derived from the body so identical content keeps its tag
+ * across refreshes.
+ */
+record CachedResponse(String path, MultiValueMap<String, String> queryParams, HttpHeaders headers, byte[] body,
+                      String etag, Duration ttl) {
+
+    static CachedResponse of(String path, MultiValueMap<String, String> queryParams, HttpHeaders headers,
+                             byte[] body, Duration ttl) {
+        return new CachedResponse(path, queryParams, headers, body,
+                "\"" + DigestUtils.md5DigestAsHex(body) + "\"", ttl);
+    }
+
+    /**
+     * Whether a purge for {@code purgePath} with {@code purgeParams} covers this
+     * entry: the path is the same or lies below it, and every purge parameter
+     * has the same values here.
+     */
+    boolean matches(String purgePath, MultiValueMap<String, String> purgeParams) {
+        boolean pathMatches = path.equals(purgePath)
+                || path.startsWith(purgePath.endsWith("/") ? purgePath : purgePath + "/");
+        return pathMatches && purgeParams.entrySet().stream()
+                .allMatch(param -> param.getValue().equals(queryParams.get(param.getKey())));
+    }
+}
@@ -0,0 +1,193 @@
+package com.example.ApiGateway.cache;
+
+import org.reactivestreams.Publisher;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Serves repeated GETs from {@link ResponseCacheStore} for the route's TTL, so
+ * display boards polling a queue are answered at the edge. Every cached or
+ * freshly cached response carries an ETag, and a matching {@code If-None-Match}
+ * is answered with 304 and no body. {@code X-Cache} tells hits from misses.
+ *
+ * <p>Only plain 200 responses to anonymous requests are stored, and nothing the
+ * downstream marks {@code no-store} or {@code private}. Declare it as the first
+ * filter of a route, so it sees the path the client asked for and hits skip the
+ * circuit breaker and rewrites.
+ */
+@Component
+public class ResponseCacheGatewayFilterFactory
+        extends AbstractGatewayFilterFactory<ResponseCacheGatewayFilterFactory.Config> {
+
+    private static final String CACHE_STATUS_HEADER = "X-Cache";
+
+    // Per-connection, per-client or recomputed on every response; never replayed
+    private static final Set<String> UNCACHED_HEADERS = Set.of(
+            HttpHeaders.CONTENT_LENGTH.toLowerCase(), HttpHeaders.TRANSFER_ENCODING.toLowerCase(),
+            HttpHeaders.CONNECTION.toLowerCase(), HttpHeaders.SET_COOKIE.toLowerCase(),
+            HttpHeaders.DATE.toLowerCase(), HttpHeaders.ETAG.toLowerCase(), CACHE_STATUS_HEADER.toLowerCase());
+
+    private final ResponseCacheStore store;
+
+    public ResponseCacheGatewayFilterFactory(ResponseCacheStore store) {
+        super(Config.class);
+        this.store = store;
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        List<PathPattern> patterns = config.getPaths().stream().map(PathPatternParser.defaultInstance::parse).toList();
+
+        return (exchange, chain) -> {
+            ServerHttpRequest request = exchange.getRequest();
+            if (!HttpMethod.GET.equals(request.getMethod())
+                    || request.getHeaders().containsKey(HttpHeaders.AUTHORIZATION)
+                    || !matches(patterns, request)) {
+                return chain.filter(exchange);
+            }
+
+            String key = request.getURI().getRawPath()
+                    + (request.getURI().getRawQuery() != null ? "?" + request.getURI().getRawQuery() : "");
+            CachedResponse cached = store.get(key);
+            if (cached != null) {
+                return replay(exchange, cached);
+            }
+            return chain.filter(exchange.mutate().response(recording(exchange, key, config.getTtl())).build());
+        };
+    }
+
+    private Mono<Void> replay(ServerWebExchange exchange, CachedResponse cached) {
+        ServerHttpResponse response = exchange.getResponse();
+        response.getHeaders().addAll(cached.headers());
+        response.getHeaders().setETag(cached.etag());
+        response.getHeaders().set(CACHE_STATUS_HEADER, "HIT");
+
+        if (notModified(exchange.getRequest(), cached.etag())) {
+            response.setStatusCode(HttpStatus.NOT_MODIFIED);
+            return response.setComplete();
+        }
+        response.setStatusCode(HttpStatus.OK);
+        response.getHeaders().setContentLength(cached.body().length);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(cached.body())));
+    }
+
+    /**
+     * Wraps the downstream response so its body is buffered, stored and tagged
+     * before it is written to the client.
+     */
+    private ServerHttpResponseDecorator recording(ServerWebExchange exchange, String key, Duration ttl) {
+        ServerHttpRequest request = exchange.getRequest();
+
+        return new ServerHttpResponseDecorator(exchange.getResponse()) {
+            @Override
+            public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+                if (getStatusCode() == null || getStatusCode().value() != 200 || !cacheable(getHeaders())) {
+                    return super.writeWith(body);
+                }
+
+                return DataBufferUtils.join(Flux.from(body)).flatMap(joined -> {
+                    byte[] bytes = new byte[joined.readableByteCount()];
+                    joined.read(bytes);
+                    DataBufferUtils.release(joined);
+
+                    CachedResponse entry = CachedResponse.of(request.getURI().getPath(), request.getQueryParams(),
+                            replayableHeaders(getHeaders()), bytes, ttl);
+                    store.put(key, entry);
+
+                    getHeaders().setETag(entry.etag());
+                    getHeaders().set(CACHE_STATUS_HEADER, "MISS");
+                    if (notModified(request, entry.etag())) {
+                        setStatusCode(HttpStatus.NOT_MODIFIED);
+                        getHeaders().remove(HttpHeaders.CONTENT_LENGTH);
+                        return getDelegate().setComplete();
+                    }
+                    getHeaders().remove(HttpHeaders.TRANSFER_ENCODING);
+                    getHeaders().setContentLength(bytes.length);
+                    return super.writeWith(Mono.just(bufferFactory().wrap(bytes)));
+                });
+            }
+        };
+    }
+
+    private static boolean matches(List<PathPattern> patterns, ServerHttpRequest request) {
+        return patterns.isEmpty()
+                || patterns.stream().anyMatch(pattern -> pattern.matches(request.getPath().pathWithinApplication()));
+    }
+
+    private static boolean cacheable(HttpHeaders headers) {
+        String cacheControl = headers.getCacheControl();
+        return !headers.containsKey(HttpHeaders.SET_COOKIE)
+                && (cacheControl == null || !(cacheControl.contains("no-store") || cacheControl.contains("private")));
+    }
+
+    private static boolean notModified(ServerHttpRequest request, String etag) {
+        try {
+            return request.getHeaders().getIfNoneMatch().stream()
+                    .anyMatch(tag -> tag.equals("*") || tag.equals(etag) || tag.equals("W/" + etag));
+        } catch (IllegalArgumentException e) {
+            // Malformed If-None-Match; answer with the full body
+            return false;
+        }
+    }
+
+    /**
+     * Downstream headers minus per-response ones and CORS headers, which the
+     * gateway's CORS filter sets per request origin.
+     */
+    private static HttpHeaders replayableHeaders(HttpHeaders headers) {
+        HttpHeaders replayable = new HttpHeaders();
+        headers.forEach((name, values) -> {
+            String lower = name.toLowerCase();
+            if (!UNCACHED_HEADERS.contains(lower) && !lower.startsWith("access-control-")) {
+                replayable.put(name, List.copyOf(values));
+            }
+        });
+        return replayable;
+    }
+
+    public static class Config {
+
+        private Duration ttl = Duration.ofSeconds(5);
+        private List<String> paths = new ArrayList<>();
+
+        public Duration getTtl() {
+            return ttl;
+        }
+
+        public Config setTtl(Duration ttl) {
+            this.ttl = ttl;
+            return this;
+        }
+
+        public List<String> getPaths() {
+            return paths;
+        }
+
+        /**
+         * Path patterns to cache within the route; empty caches every GET.
+         */
+        public Config setPaths(List<String> paths) {
+            this.paths = paths;
+            return this;
+        }
+    }
+}
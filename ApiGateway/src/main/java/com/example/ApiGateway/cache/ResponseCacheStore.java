@@ -0,0 +1,151 @@
+package com.example.ApiGateway.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.ReactiveSubscription;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.ReactiveRedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.util.UriComponents;
+import org.springframework.web.util.UriComponentsBuilder;
+import org.springframework.web.util.UriUtils;
+import reactor.core.Disposable;
+import reactor.util.retry.Retry;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * In-memory store behind {@link ResponseCacheGatewayFilterFactory}. Each entry
+ * expires after its route's TTL. Downstream services purge entries early by
+ * publishing a gateway path, optionally with query parameters, on
+ * {@link #CHANNEL}, e.g. {@code /api/queue/status?doctorId=D1&date=2025-01-31}.
+ * Every gateway replica listens and drops the entries the path covers.
+ *
+ * <p>Keys are also indexed by path, so a purge only looks at the entries at or
+ * below its path instead of the whole cache.
+ */
+@Component
+public class ResponseCacheStore {
+
+    public static final String CHANNEL = "gateway-cache-invalidations";
+
+    private static final Logger log = LoggerFactory.getLogger(ResponseCacheStore.class);
+
+    private final Cache<String, CachedResponse> entries;
+    private final ConcurrentNavigableMap<String, Set<String>> keysByPath = new ConcurrentSkipListMap<>();
+    private final ReactiveRedisMessageListenerContainer listenerContainer;
+    private Disposable subscription;
+
+    public ResponseCacheStore(ReactiveRedisMessageListenerContainer listenerContainer,
+                              @Value("${gateway.cache.max-entries:10000}") long maxEntries) {
+        this.listenerContainer = listenerContainer;
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfter(new Expiry<String, CachedResponse>() {
+                    @Override
+                    public long expireAfterCreate(String key, CachedResponse value, long currentTime) {
+                        return value.ttl().toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, CachedResponse value, long currentTime,
+                                                  long currentDuration) {
+                        return value.ttl().toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, CachedResponse value, long currentTime,
+                                                long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .executor(Runnable::run)
+                .removalListener((String key, CachedResponse value, RemovalCause cause) -> {
+                    if (key != null && value != null && cause != RemovalCause.REPLACED) {
+                        unindex(key, value.path());
+                    }
+                })
+                .build();
+    }
+
+    @PostConstruct
+    public void subscribe() {
+        subscription = listenerContainer.receive(ChannelTopic.of(CHANNEL))
+                .map(ReactiveSubscription.Message::getMessage)
+                .doOnError(e -> log.warn("Cache invalidation channel failed, resubscribing", e))
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1)).maxBackoff(Duration.ofSeconds(30)))
+                .subscribe(this::invalidate);
+    }
+
+    @PreDestroy
+    public void unsubscribe() {
+        if (subscription != null) {
+            subscription.dispose();
+        }
+    }
+
+    CachedResponse get(String key) {
+        return entries.getIfPresent(key);
+    }
+
+    void put(String key, CachedResponse response) {
+        entries.put(key, response);
+        keysByPath.compute(response.path(), (path, keys) -> {
+            Set<String> indexed = keys != null ? keys : ConcurrentHashMap.newKeySet();
+            indexed.add(key);
+            return indexed;
+        });
+    }
+
+    void invalidate(String purge) {
+        UriComponents uri = UriComponentsBuilder.fromUriString(purge).build();
+        if (uri.getPath() == null) {
+            return;
+        }
+        String path = UriUtils.decode(uri.getPath(), StandardCharsets.UTF_8);
+        MultiValueMap<String, String> params = new LinkedMultiValueMap<>();
+        uri.getQueryParams().forEach((name, values) -> values.forEach(value ->
+                params.add(UriUtils.decode(name, StandardCharsets.UTF_8),
+                        value != null ? UriUtils.decode(value, StandardCharsets.UTF_8) : null)));
+
+        String prefix = path.endsWith("/") ? path : path + "/";
+        List<String> candidates = new ArrayList<>(keysByPath.getOrDefault(path, Set.of()));
+        keysByPath.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values().forEach(candidates::addAll);
+
+        for (String key : candidates) {
+            CachedResponse entry = entries.getIfPresent(key);
+            if (entry != null && entry.matches(path, params)) {
+                entries.invalidate(key);
+            }
+        }
+    }
+
+    /**
+     * Drops a removed key from the path index, unless it was stored again in
+     * the meantime.
+     */
+    private void unindex(String key, String path) {
+        keysByPath.computeIfPresent(path, (p, keys) -> {
+            if (!entries.asMap().containsKey(key)) {
+                keys.remove(key);
+            }
+            return keys.isEmpty() ? null : keys;
+        });
+    }
+}
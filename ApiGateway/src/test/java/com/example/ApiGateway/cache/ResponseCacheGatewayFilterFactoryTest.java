@@ -0,0 +1,170 @@
+package com.example.ApiGateway.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.data.redis.listener.ReactiveRedisMessageListenerContainer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class ResponseCacheGatewayFilterFactoryTest {
+
+    private static final String BODY = "{\"doctorId\":\"D1\",\"waiting\":3}";
+
+    private ResponseCacheStore store;
+    private GatewayFilter filter;
+    private final AtomicInteger downstreamCalls = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        store = new ResponseCacheStore(mock(ReactiveRedisMessageListenerContainer.class), 100);
+        filter = new ResponseCacheGatewayFilterFactory(store)
+                .apply(new ResponseCacheGatewayFilterFactory.Config().setTtl(Duration.ofMinutes(1)));
+    }
+
+    @Test
+    void secondRequestIsServedFromCacheWithTheSameEtag() {
+        MockServerWebExchange first = get("/api/queue/status?doctorId=D1");
+        filter.filter(first, downstream(BODY, null)).block();
+
+        MockServerWebExchange second = get("/api/queue/status?doctorId=D1");
+        filter.filter(second, downstream(BODY, null)).block();
+
+        assertThat(downstreamCalls).hasValue(1);
+        assertThat(first.getResponse().getHeaders().getFirst("X-Cache")).isEqualTo("MISS");
+        assertThat(second.getResponse().getHeaders().getFirst("X-Cache")).isEqualTo("HIT");
+        assertThat(second.getResponse().getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(second.getResponse().getBodyAsString().block()).isEqualTo(BODY);
+        assertThat(second.getResponse().getHeaders().getETag())
+                .isNotNull()
+                .isEqualTo(first.getResponse().getHeaders().getETag());
+        assertThat(second.getResponse().getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_JSON);
+    }
+
+    @Test
+    void matchingIfNoneMatchIsAnsweredWithNotModified() {
+        MockServerWebExchange first = get("/api/queue/status?doctorId=D1");
+        filter.filter(first, downstream(BODY, null)).block();
+        String etag = first.getResponse().getHeaders().getETag();
+
+        MockServerWebExchange hit = get("/api/queue/status?doctorId=D1", HttpHeaders.IF_NONE_MATCH, etag);
+        filter.filter(hit, downstream(BODY, null)).block();
+
+        assertThat(hit.getResponse().getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(hit.getResponse().getHeaders().getETag()).isEqualTo(etag);
+        assertThat(hit.getResponse().getBodyAsString().defaultIfEmpty("").block()).isEmpty();
+
+        MockServerWebExchange stale = get("/api/queue/status?doctorId=D1", HttpHeaders.IF_NONE_MATCH, "\"stale\"");
+        filter.filter(stale, downstream(BODY, null)).block();
+
+        assertThat(stale.getResponse().getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(stale.getResponse().getBodyAsString().block()).isEqualTo(BODY);
+    }
+
+    @Test
+    void notModifiedIsAlsoAnsweredOnAMiss() {
+        MockServerWebExchange warm = get("/api/queue/status?doctorId=D1");
+        filter.filter(warm, downstream(BODY, null)).block();
+        String etag = warm.getResponse().getHeaders().getETag();
+        store.invalidate("/api/queue/status");
+
+        MockServerWebExchange miss = get("/api/queue/status?doctorId=D1", HttpHeaders.IF_NONE_MATCH, etag);
+        filter.filter(miss, downstream(BODY, null)).block();
+
+        assertThat(downstreamCalls).hasValue(2);
+        assertThat(miss.getResponse().getHeaders().getFirst("X-Cache")).isEqualTo("MISS");
+        assertThat(miss.getResponse().getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(miss.getResponse().getBodyAsString().defaultIfEmpty("").block()).isEmpty();
+    }
+
+    @Test
+    void authorizedAndNoStoreResponsesAreNotCached() {
+        for (int i = 0; i < 2; i++) {
+            filter.filter(get("/api/queue/status?doctorId=D1", HttpHeaders.AUTHORIZATION, "Bearer token"),
+                    downstream(BODY, null)).block();
+        }
+        assertThat(downstreamCalls).hasValue(2);
+
+        for (int i = 0; i < 2; i++) {
+            filter.filter(get("/api/queue/status?doctorId=D2"), downstream(BODY, "no-store")).block();
+        }
+        assertThat(downstreamCalls).hasValue(4);
+    }
+
+    @Test
+    void purgeDropsOnlyEntriesMatchingItsParameters() {
+        cache("/api/queue/status?doctorId=D1&date=2026-03-02");
+        cache("/api/queue/status?doctorId=D1&date=2026-03-03");
+        cache("/api/queue/status?doctorId=D2&date=2026-03-02");
+
+        store.invalidate("/api/queue/status?doctorId=D1&date=2026-03-02");
+
+        assertThat(store.get("/api/queue/status?doctorId=D1&date=2026-03-02")).isNull();
+        assertThat(store.get("/api/queue/status?doctorId=D1&date=2026-03-03")).isNotNull();
+        assertThat(store.get("/api/queue/status?doctorId=D2&date=2026-03-02")).isNotNull();
+    }
+
+    @Test
+    void purgeCoversPathsBelowItButNotSiblingsSharingItsPrefix() {
+        cache("/api/patients/P1");
+        cache("/api/patients/P1/history?page=0");
+        cache("/api/patients/P10");
+
+        store.invalidate("/api/patients/P1");
+
+        assertThat(store.get("/api/patients/P1")).isNull();
+        assertThat(store.get("/api/patients/P1/history?page=0")).isNull();
+        assertThat(store.get("/api/patients/P10")).isNotNull();
+    }
+
+    @Test
+    void entriesCachedAgainAfterAPurgeCanBePurgedAgain() {
+        cache("/api/queue/status?doctorId=D1");
+        store.invalidate("/api/queue/status?doctorId=D1");
+        cache("/api/queue/status?doctorId=D1");
+
+        assertThat(store.get("/api/queue/status?doctorId=D1")).isNotNull();
+        store.invalidate("/api/queue/status");
+
+        assertThat(store.get("/api/queue/status?doctorId=D1")).isNull();
+    }
+
+    private void cache(String uri) {
+        filter.filter(get(uri), downstream(BODY, null)).block();
+    }
+
+    private static MockServerWebExchange get(String uri) {
+        return MockServerWebExchange.from(MockServerHttpRequest.get(uri));
+    }
+
+    private static MockServerWebExchange get(String uri, String header, String value) {
+        return MockServerWebExchange.from(MockServerHttpRequest.get(uri).header(header, value));
+    }
+
+    private GatewayFilterChain downstream(String body, String cacheControl) {
+        return exchange -> {
+            downstreamCalls.incrementAndGet();
+            ServerHttpResponse response = exchange.getResponse();
+            response.setStatusCode(HttpStatus.OK);
+            response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+            if (cacheControl != null) {
+                response.getHeaders().setCacheControl(cacheControl);
+            }
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            return response.writeWith(Mono.just(response.bufferFactory().wrap(bytes)));
+        };
+    }
+}
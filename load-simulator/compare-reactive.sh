@@ -0,0 +1,35 @@
+#!/usr/bin/env bash
+# Burst benchmark of queue-service's blocking read endpoints against their
+# /API/QUEUE/rx counterparts, at 1k and 10k concurrent clients.
+#
+#   ./compare-reactive.sh <queue-status|queue-history> [base-url] [patient-ids]
+#
+# Start queue-service with the reactive endpoints enabled first:
+#   ./mvnw spring-boot:run -Dspring-boot.run.arguments=--queue.reactive.enabled=true
+# queue-history needs comma-separated ids of patients that hold tokens, e.g. from a
+# simulator run. 10k clients need roughly 10k sockets on each side, so raise
+# `ulimit -n` in both shells.
+set -euo pipefail
+
+TARGET=${1:?queue-status or queue-history}
+BASE_URL=${2:-http://localhost:8083}
+PATIENT_IDS=${3:-}
+OUT=target/reactive
+mkdir -p "$OUT"
+
+for CLIENTS in 1000 10000; do
+    for VARIANT in "$TARGET" "$TARGET-rx"; do
+        ./mvnw -q compile exec:java -Dexec.mainClass=com.example.load_simulator.BurstLoad \
+            -Dexec.args="--base-url=$BASE_URL --target=$VARIANT --clients=$CLIENTS ${PATIENT_IDS:+--patient-ids=$PATIENT_IDS} --report=$OUT/$VARIANT-$CLIENTS.csv"
+    done
+done
+
+echo
+printf "%-8s %-18s %10s %10s %10s\n" clients target "req/s" "p50 ms" "p99 ms"
+for CLIENTS in 1000 10000; do
+    for VARIANT in "$TARGET" "$TARGET-rx"; do
+        FILE="$OUT/$VARIANT-$CLIENTS.csv"
+        [ -f "$FILE" ] || continue
+        tail -n +2 "$FILE" | awk -F, -v c="$CLIENTS" -v t="$VARIANT" '{ printf "%-8s %-18s %10.1f %10.1f %10.1f\n", c, t, $3, $4, $6 }'
+    done
+done
@@ -0,0 +1,40 @@
+#!/usr/bin/env bash
+# Burst benchmark of one service at 1k and 10k concurrent clients, for comparing
+# platform threads with the virtual-threads profile.
+#
+#   ./compare-threading.sh <platform|virtual> <patient-search|queue-status> [base-url]
+#
+# Start the service in the matching mode first, on JDK 21 or newer:
+#   ./mvnw spring-boot:run                                                  # platform
+#   ./mvnw spring-boot:run -Dspring-boot.run.profiles=virtual-threads       # virtual
+# Run once per mode; the second run prints both side by side. 10k clients need
+# roughly 10k sockets on each side, so raise `ulimit -n` in both shells.
+set -euo pipefail
+
+MODE=${1:?platform or virtual}
+TARGET=${2:?patient-search or queue-status}
+BASE_URL=${3:-$([ "$TARGET" = queue-status ] && echo http://localhost:8083 || echo http://localhost:8081)}
+OUT=target/threading
+mkdir -p "$OUT"
+
+for CLIENTS in 1000 10000; do
+    ./mvnw -q compile exec:java -Dexec.mainClass=com.example.load_simulator.BurstLoad \
+        -Dexec.args="--base-url=$BASE_URL --target=$TARGET --clients=$CLIENTS --report=$OUT/$MODE-$TARGET-$CLIENTS.csv"
+done
+
+# Pinned virtual threads seen by the service during the runs, per library
+if [ "$MODE" = virtual ]; then
+    echo
+    echo "Pinning (count and total seconds per library):"
+    curl -s "$BASE_URL/actuator/prometheus" | grep '^virtual_threads_pinned_seconds_\(count\|sum\)' || echo "none recorded"
+fi
+
+echo
+printf "%-8s %-8s %10s %10s %10s\n" clients mode "req/s" "p50 ms" "p99 ms"
+for CLIENTS in 1000 10000; do
+    for RUN in platform virtual; do
+        FILE="$OUT/$RUN-$TARGET-$CLIENTS.csv"
+        [ -f "$FILE" ] || continue
+        tail -n +2 "$FILE" | awk -F, -v c="$CLIENTS" -v m="$RUN" '{ printf "%-8s %-8s %10.1f %10.1f %10.1f\n", c, m, $3, $4, $6 }'
+    done
+done
@@ -0,0 +1,159 @@
+package com.example.load_simulator;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Closed-loop burst against one service, bypassing the gateway so its rate
+ * limiter does not cap the load: {@code --clients} clients each send their next
+ * request as soon as the previous one answers. Used to compare a service on
+ * platform and virtual threads at a fixed concurrency; see compare-threading.sh.
+ *
+ * <p>Targets hit the store directly on every request:
+ * {@code patient-search} runs the JDBC search query, {@code queue-status} reads
+ * the queue's Redis hash and {@code queue-history} pages a patient's tokens
+ * ({@code --patient-ids}). The {@code -rx} variants of the queue targets call the
+ * same reads on the non-blocking {@code /API/QUEUE/rx} endpoints, so blocking
+ * and reactive can be compared on one running service; see compare-reactive.sh.
+ */
+public final class BurstLoad {
+
+    // Fragments of the names the simulator registers ("Load PatientN"), URL-encoded
+    private static final String[] SEARCH_TERMS = {"load", "pati", "ent1", "ent2", "ent3", "oad%20p"};
+
+    private final Config config;
+    private final HttpClient httpClient;
+    private final ExecutorService httpExecutor;
+    private volatile OperationStats stats;
+
+    private BurstLoad(Config config) {
+        this.config = config;
+        this.httpExecutor = Executors.newFixedThreadPool(Math.max(4, Runtime.getRuntime().availableProcessors() * 2));
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(config.requestTimeout())
+                .executor(httpExecutor)
+                .build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        Config config = Config.parse(args);
+        System.out.printf("Burst of %d clients against %s (%s) for %s after %s warm-up%n", config.clients(),
+                config.baseUrl(), config.target(), config.duration(), config.warmup());
+
+        BurstLoad burst = new BurstLoad(config);
+        double elapsedSeconds = burst.run();
+        SimulationReport.print(Map.of(config.target(), burst.stats), elapsedSeconds, config.report());
+    }
+
+    private double run() throws InterruptedException {
+        // Warm-up samples go to a throwaway collector
+        stats = new OperationStats(config.target());
+        long warmupEnd = System.nanoTime() + config.warmup().toNanos();
+        long end = warmupEnd + config.duration().toNanos();
+
+        CountDownLatch finished = new CountDownLatch(config.clients());
+        for (int client = 0; client < config.clients(); client++) {
+            loop(client, 0, end, finished);
+        }
+
+        sleepUntil(warmupEnd);
+        stats = new OperationStats(config.target());
+        long measuredStart = System.nanoTime();
+
+        if (!finished.await(config.duration().toSeconds() + config.requestTimeout().toSeconds() + 30,
+                TimeUnit.SECONDS)) {
+            System.out.println("Some clients were still waiting for a response at the end of the run");
+        }
+        httpExecutor.shutdownNow();
+        return (Math.min(System.nanoTime(), end) - measuredStart) / 1e9;
+    }
+
+    private void loop(int client, long sequence, long end, CountDownLatch finished) {
+        if (System.nanoTime() >= end) {
+            finished.countDown();
+            return;
+        }
+
+        OperationStats current = stats;
+        long startNanos = System.nanoTime();
+        httpClient.sendAsync(request(client, sequence), HttpResponse.BodyHandlers.discarding())
+                .whenComplete((response, error) -> {
+                    long latencyMicros = (System.nanoTime() - startNanos) / 1000;
+                    if (error != null) {
+                        current.recordTransportError(latencyMicros);
+                    } else {
+                        current.record(response.statusCode(), latencyMicros);
+                    }
+                    loop(client, sequence + 1, end, finished);
+                });
+    }
+
+    private HttpRequest request(int client, long sequence) {
+        String path = switch (config.target()) {
+            case "patient-search" -> "/api/patients/search?name=" + SEARCH_TERMS[(int) ((client + sequence)
+                    % SEARCH_TERMS.length)] + "&limit=20";
+            case "queue-status" -> "/API/QUEUE/status?" + statusQuery(client);
+            case "queue-status-rx" -> "/API/QUEUE/rx/status?" + statusQuery(client);
+            case "queue-history" -> "/API/QUEUE/patient/" + patientId(client, sequence) + "?limit=20";
+            case "queue-history-rx" -> "/API/QUEUE/rx/patient/" + patientId(client, sequence) + "?limit=20";
+            default -> throw new IllegalArgumentException("Unknown target: " + config.target());
+        };
+        return HttpRequest.newBuilder(URI.create(config.baseUrl() + path))
+                .timeout(config.requestTimeout())
+                .header("X-User-Id", "burst-" + client)
+                .GET()
+                .build();
+    }
+
+    private static String statusQuery(int client) {
+        return "doctorId=sim-doctor-" + (client % 8) + "&date=" + LocalDate.now();
+    }
+
+    private String patientId(int client, long sequence) {
+        if (config.patientIds().length == 0) {
+            throw new IllegalArgumentException("--patient-ids is required for " + config.target());
+        }
+        return config.patientIds()[(int) ((client + sequence) % config.patientIds().length)];
+    }
+
+    private static void sleepUntil(long nanos) throws InterruptedException {
+        long remaining = nanos - System.nanoTime();
+        if (remaining > 0) {
+            TimeUnit.NANOSECONDS.sleep(remaining);
+        }
+    }
+
+    record Config(String baseUrl, String target, int clients, Duration warmup, Duration duration,
+                  Duration requestTimeout, String[] patientIds, String report) {
+
+        static Config parse(String[] args) {
+            Map<String, String> values = new HashMap<>();
+            for (String arg : args) {
+                if (!arg.startsWith("--") || !arg.contains("=")) {
+                    throw new IllegalArgumentException("Expected --name=value but got: " + arg);
+                }
+                values.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            }
+
+            return new Config(
+                    values.getOrDefault("base-url", "http://localhost:8081"),
+                    values.getOrDefault("target", "patient-search"),
+                    Integer.parseInt(values.getOrDefault("clients", "1000")),
+                    Duration.parse(values.getOrDefault("warmup", "PT15S")),
+                    Duration.parse(values.getOrDefault("duration", "PT60S")),
+                    Duration.parse(values.getOrDefault("request-timeout", "PT30S")),
+                    values.containsKey("patient-ids") ? values.get("patient-ids").split(",") : new String[0],
+                    values.get("report"));
+        }
+    }
+}
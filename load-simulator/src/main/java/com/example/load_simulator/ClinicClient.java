@@ -0,0 +1,158 @@
+package com.example.load_simulator;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+/**
+ * The clinic's HTTP calls, all sent through the gateway. Each call is timed from
+ * the moment it was meant to start, not the moment a connection became free, so
+ * queueing inside a saturated client or server shows up in the latencies.
+ * Each simulated device identifies itself with {@code X-User-Id}, which is what
+ * the gateway's rate limiter keys on.
+ */
+final class ClinicClient {
+
+    static final String REGISTER = "register";
+    static final String GENERATE = "generate";
+    static final String CALL_NEXT = "call-next";
+    static final String START = "start";
+    static final String COMPLETE = "complete";
+    static final String STATUS = "status";
+
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final SimulationConfig config;
+    private final Map<String, OperationStats> stats = new ConcurrentHashMap<>();
+
+    ClinicClient(SimulationConfig config, Executor executor) {
+        this.config = config;
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(config.requestTimeout())
+                .executor(executor)
+                .build();
+    }
+
+    Map<String, OperationStats> stats() {
+        return stats;
+    }
+
+    CompletableFuture<Response> register(String deviceId, long sequence, long intendedStartNanos) {
+        ObjectNode body = objectMapper.createObjectNode()
+                .put("firstName", "Load")
+                .put("lastName", "Patient" + sequence)
+                .put("dateOfBirth", LocalDate.of(1960, 1, 1).plusDays(sequence % 20000).toString())
+                .put("gender", sequence % 2 == 0 ? "FEMALE" : "MALE")
+                .put("phoneNumber", "+2507" + String.format("%08d", sequence % 100_000_000))
+                .put("email", "load.patient." + sequence + "@example.com")
+                .put("password", "load-test-" + sequence);
+        return send(REGISTER, deviceId, post(config.patientPath() + "/register", body), intendedStartNanos);
+    }
+
+    CompletableFuture<Response> generate(String deviceId, String patientId, String doctorId, String departmentId,
+                                         String priority, long intendedStartNanos) {
+        ObjectNode body = objectMapper.createObjectNode()
+                .put("patientId", patientId)
+                .put("doctorId", doctorId)
+                .put("departmentId", departmentId)
+                .put("date", LocalDate.now().toString())
+                .put("priority", priority);
+        return send(GENERATE, deviceId, post(config.queuePath() + "/generate", body), intendedStartNanos);
+    }
+
+    CompletableFuture<Response> callNext(String doctorId) {
+        return send(CALL_NEXT, doctorId, request(config.queuePath() + "/call-next?doctorId=" + doctorId
+                + "&date=" + LocalDate.now()).POST(HttpRequest.BodyPublishers.noBody()), System.nanoTime());
+    }
+
+    CompletableFuture<Response> start(String doctorId, String tokenId) {
+        return send(START, doctorId, request(config.queuePath() + "/token/" + tokenId + "/start")
+                .PUT(HttpRequest.BodyPublishers.noBody()), System.nanoTime());
+    }
+
+    CompletableFuture<Response> complete(String doctorId, String tokenId) {
+        return send(COMPLETE, doctorId, request(config.queuePath() + "/token/" + tokenId + "/complete")
+                .PUT(HttpRequest.BodyPublishers.noBody()), System.nanoTime());
+    }
+
+    CompletableFuture<Response> status(String displayId, String doctorId, long intendedStartNanos) {
+        return send(STATUS, displayId, request(config.queuePath() + "/status?doctorId=" + doctorId
+                + "&date=" + LocalDate.now()).GET(), intendedStartNanos);
+    }
+
+    /**
+     * Counts a request the client had to drop because too many were already in
+     * flight; it is reported as a transport error of its operation.
+     */
+    void recordDropped(String operation, long intendedStartNanos) {
+        stats(operation).recordTransportError((System.nanoTime() - intendedStartNanos) / 1000);
+    }
+
+    private CompletableFuture<Response> send(String operation, String deviceId, HttpRequest.Builder builder,
+                                             long intendedStartNanos) {
+        OperationStats operationStats = stats(operation);
+        HttpRequest request = builder.header("X-User-Id", deviceId).build();
+
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .handle((response, error) -> {
+                    long latencyMicros = (System.nanoTime() - intendedStartNanos) / 1000;
+                    if (error != null) {
+                        operationStats.recordTransportError(latencyMicros);
+                        return new Response(0, null);
+                    }
+                    operationStats.record(response.statusCode(), latencyMicros);
+                    return new Response(response.statusCode(), parse(response.body()));
+                });
+    }
+
+    private OperationStats stats(String operation) {
+        return stats.computeIfAbsent(operation, OperationStats::new);
+    }
+
+    private HttpRequest.Builder post(String path, JsonNode body) {
+        try {
+            return request(path)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(body)));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(URI.create(config.gateway() + path)).timeout(config.requestTimeout());
+    }
+
+    private JsonNode parse(String body) {
+        if (body == null || body.isBlank()) {
+            return null;
+        }
+        try {
+            return objectMapper.readTree(body);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    record Response(int status, JsonNode body) {
+
+        boolean ok() {
+            return status >= 200 && status < 300;
+        }
+
+        String text(String field) {
+            return body != null && body.hasNonNull(field) ? body.get(field).asText() : null;
+        }
+    }
+}
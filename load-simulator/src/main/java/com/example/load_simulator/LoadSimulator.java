@@ -0,0 +1,213 @@
+package com.example.load_simulator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Replays a clinic morning against the gateway, compressed into
+ * {@code --duration}: patients arrive in waves and groups, registering first
+ * when they are new, and take a token at a kiosk; doctors call, start and
+ * complete consultations of realistic length; waiting-room displays poll the
+ * queue status. At the end it prints throughput, latency percentiles, error
+ * rates and rate-limiter rejections per operation.
+ */
+public final class LoadSimulator {
+
+    private static final int KIOSKS = 4;
+    private static final long DRAIN_TIMEOUT_SECONDS = 30;
+
+    private final SimulationConfig config;
+    private final ExecutorService httpExecutor;
+    private final ClinicClient client;
+    private final Semaphore inFlight;
+    private final AtomicIntegerArray pending;
+    private final List<String> knownPatients = Collections.synchronizedList(new ArrayList<>());
+
+    private LoadSimulator(SimulationConfig config) {
+        this.config = config;
+        this.httpExecutor = Executors.newFixedThreadPool(Math.max(4, Runtime.getRuntime().availableProcessors() * 2));
+        this.client = new ClinicClient(config, httpExecutor);
+        this.inFlight = new Semaphore(config.maxInFlight());
+        this.pending = new AtomicIntegerArray(config.doctors());
+    }
+
+    public static void main(String[] args) throws Exception {
+        SimulationConfig config = SimulationConfig.parse(args);
+        System.out.printf("Simulating a %s morning in %s (x%.0f) against %s: %d patients, %d doctors%n",
+                config.morning(), config.duration(), config.timeScale(), config.gateway(),
+                config.patients(), config.doctors());
+
+        LoadSimulator simulator = new LoadSimulator(config);
+        double elapsedSeconds = simulator.run();
+        SimulationReport.print(simulator.client.stats(), elapsedSeconds, config);
+    }
+
+    private double run() throws InterruptedException {
+        Random random = new Random(config.seed());
+        long durationMillis = config.duration().toMillis();
+        List<Long> arrivals = MorningProfile.arrivals(config.patients(), durationMillis, random);
+
+        long startNanos = System.nanoTime();
+        long endNanos = startNanos + TimeUnit.MILLISECONDS.toNanos(durationMillis);
+
+        List<Thread> doctors = new ArrayList<>();
+        for (int d = 0; d < config.doctors(); d++) {
+            int doctor = d;
+            Thread thread = new Thread(() -> runDoctor(doctor, endNanos, new Random(config.seed() + doctor)),
+                    "doctor-" + d);
+            thread.start();
+            doctors.add(thread);
+        }
+
+        ScheduledExecutorService displays = startDisplays(random);
+
+        long sequence = 0;
+        for (long offsetMillis : arrivals) {
+            long intendedNanos = startNanos + TimeUnit.MILLISECONDS.toNanos(offsetMillis);
+            sleepUntil(intendedNanos);
+            arrive(++sequence, intendedNanos, random);
+        }
+
+        sleepUntil(endNanos);
+        displays.shutdownNow();
+        for (Thread doctor : doctors) {
+            doctor.join();
+        }
+        if (!inFlight.tryAcquire(config.maxInFlight(), DRAIN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+            System.out.println("Some requests were still in flight after the drain timeout");
+        }
+        httpExecutor.shutdownNow();
+
+        return (System.nanoTime() - startNanos) / 1e9;
+    }
+
+    /**
+     * One patient at the kiosk: new patients register first, returning ones reuse
+     * an id registered earlier in the run.
+     */
+    private void arrive(long sequence, long intendedNanos, Random random) {
+        if (!inFlight.tryAcquire()) {
+            client.recordDropped(ClinicClient.GENERATE, intendedNanos);
+            return;
+        }
+
+        int doctor = random.nextInt(config.doctors());
+        String kiosk = "kiosk-" + (sequence % KIOSKS);
+        String priority = priority(random);
+        String returning = random.nextDouble() >= config.newPatientRatio() && !knownPatients.isEmpty()
+                ? knownPatients.get(random.nextInt(knownPatients.size()))
+                : null;
+
+        CompletableFuture<String> patientId = returning != null
+                ? CompletableFuture.completedFuture(returning)
+                : client.register("phone-" + sequence, sequence, intendedNanos).thenApply(response -> {
+                    String id = response.ok() ? response.text("patientId") : null;
+                    if (id != null) {
+                        knownPatients.add(id);
+                    }
+                    return id;
+                });
+
+        patientId.thenCompose(id -> id == null
+                        ? CompletableFuture.completedFuture(null)
+                        : client.generate(kiosk, id, doctorId(doctor), departmentId(doctor), priority,
+                                returning != null ? intendedNanos : System.nanoTime()))
+                .whenComplete((response, error) -> {
+                    if (response != null && response.ok()) {
+                        pending.incrementAndGet(doctor);
+                    }
+                    inFlight.release();
+                });
+    }
+
+    /**
+     * One doctor's morning: call the next patient whenever one is known to be
+     * waiting, consult for an exponentially distributed time around the
+     * configured mean, then complete.
+     */
+    private void runDoctor(int doctor, long endNanos, Random random) {
+        String doctorId = doctorId(doctor);
+        double meanConsultMillis = config.consultationMinutes() * 60_000 / config.timeScale();
+
+        while (System.nanoTime() < endNanos) {
+            if (pending.get(doctor) == 0) {
+                sleep(100);
+                continue;
+            }
+
+            ClinicClient.Response called = client.callNext(doctorId).join();
+            if (!called.ok() || called.text("tokenId") == null) {
+                sleep(250);
+                continue;
+            }
+            pending.decrementAndGet(doctor);
+
+            String tokenId = called.text("tokenId");
+            client.start(doctorId, tokenId).join();
+            long consultMillis = (long) (-Math.log(1 - random.nextDouble()) * meanConsultMillis);
+            sleep(Math.min(consultMillis, Math.max(0, (endNanos - System.nanoTime()) / 1_000_000)));
+            client.complete(doctorId, tokenId).join();
+        }
+    }
+
+    private ScheduledExecutorService startDisplays(Random random) {
+        ScheduledExecutorService displays = Executors.newScheduledThreadPool(2);
+        long pollMillis = config.displayPoll().toMillis();
+
+        for (int d = 0; d < config.doctors(); d++) {
+            for (int screen = 0; screen < config.displaysPerDoctor(); screen++) {
+                String doctorId = doctorId(d);
+                String displayId = "display-" + d + "-" + screen;
+                displays.scheduleAtFixedRate(() -> {
+                    long intendedNanos = System.nanoTime();
+                    if (!inFlight.tryAcquire()) {
+                        client.recordDropped(ClinicClient.STATUS, intendedNanos);
+                        return;
+                    }
+                    client.status(displayId, doctorId, intendedNanos).whenComplete((r, e) -> inFlight.release());
+                }, random.nextInt((int) Math.max(1, pollMillis)), pollMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+        return displays;
+    }
+
+    private static String priority(Random random) {
+        double roll = random.nextDouble();
+        if (roll < 0.01) {
+            return "EMERGENCY";
+        }
+        return roll < 0.06 ? "HIGH" : "NORMAL";
+    }
+
+    private static String doctorId(int doctor) {
+        return "sim-doctor-" + doctor;
+    }
+
+    private String departmentId(int doctor) {
+        return "sim-department-" + (doctor % config.departments());
+    }
+
+    private static void sleepUntil(long nanos) {
+        long remaining = nanos - System.nanoTime();
+        if (remaining > 0) {
+            sleep(TimeUnit.NANOSECONDS.toMillis(remaining));
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
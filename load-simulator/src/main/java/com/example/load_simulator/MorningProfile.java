@@ -0,0 +1,54 @@
+package com.example.load_simulator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Arrival times for one clinic morning. Arrival intensity follows a curve with a
+ * rush at opening and a second, smaller wave mid-morning, and patients arrive in
+ * groups (families, shuttle buses) rather than one by one. The schedule is drawn
+ * up front from a seeded generator, so two runs with the same seed send the
+ * same traffic.
+ */
+final class MorningProfile {
+
+    // Relative arrival intensity for each equal slice of the morning
+    private static final double[] INTENSITY = {
+            3.0, 2.6, 2.2, 1.6, 1.2, 1.0, 0.9, 0.9,
+            1.4, 1.6, 1.2, 0.8, 0.6, 0.5, 0.4, 0.3
+    };
+    private static final double GROUP_CONTINUE_PROBABILITY = 0.35;
+
+    private MorningProfile() {
+    }
+
+    /**
+     * Wall-clock offsets in milliseconds, sorted, one per arriving patient.
+     */
+    static List<Long> arrivals(int patients, long durationMillis, Random random) {
+        double total = 0;
+        for (double weight : INTENSITY) {
+            total += weight;
+        }
+        double sliceMillis = (double) durationMillis / INTENSITY.length;
+
+        List<Long> arrivals = new ArrayList<>(patients);
+        while (arrivals.size() < patients) {
+            double pick = random.nextDouble() * total;
+            int slice = 0;
+            while (pick > INTENSITY[slice] && slice < INTENSITY.length - 1) {
+                pick -= INTENSITY[slice];
+                slice++;
+            }
+            long at = (long) ((slice + random.nextDouble()) * sliceMillis);
+
+            arrivals.add(at);
+            while (arrivals.size() < patients && random.nextDouble() < GROUP_CONTINUE_PROBABILITY) {
+                arrivals.add(Math.min(durationMillis - 1, at + random.nextInt(2000)));
+            }
+        }
+        arrivals.sort(Long::compare);
+        return arrivals;
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.load_simulator;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Outcome counts and latency samples for one kind of request. Every latency is
+ * kept, so percentiles are exact rather than estimated.
+ */
+final class OperationStats {
+
+    private final String name;
+    private final LongAdder succeeded = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder transportErrors = new LongAdder();
+    private long[] latenciesMicros = new long[1024];
+    private int samples;
+
+    OperationStats(String name) {
+        this.name = name;
+    }
+
+    String name() {
+        return name;
+    }
+
+    void record(int status, long latencyMicros) {
+        if (status == 429) {
+            rejected.increment();
+        } else if (status >= 200 && status < 300) {
+            succeeded.increment();
+        } else {
+            failed.increment();
+        }
+        addLatency(latencyMicros);
+    }
+
+    void recordTransportError(long latencyMicros) {
+        transportErrors.increment();
+        addLatency(latencyMicros);
+    }
+
+    private synchronized void addLatency(long latencyMicros) {
+        if (samples == latenciesMicros.length) {
+            latenciesMicros = Arrays.copyOf(latenciesMicros, samples * 2);
+        }
+        latenciesMicros[samples++] = latencyMicros;
+    }
+
+    Summary summarize(double elapsedSeconds) {
+        long[] sorted;
+        synchronized (this) {
+            sorted = Arrays.copyOf(latenciesMicros, samples);
+        }
+        Arrays.sort(sorted);
+
+        long requests = succeeded.sum() + failed.sum() + rejected.sum() + transportErrors.sum();
+        return new Summary(name, requests, requests / elapsedSeconds,
+                percentile(sorted, 0.50), percentile(sorted, 0.90), percentile(sorted, 0.99),
+                percentile(sorted, 0.999), sorted.length > 0 ? sorted[sorted.length - 1] : 0,
+                failed.sum() + transportErrors.sum(), rejected.sum());
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[(int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1)];
+    }
+
+    record Summary(String operation, long requests, double throughput, long p50Micros, long p90Micros,
+                   long p99Micros, long p999Micros, long maxMicros, long errors, long rejected) {
+
+        double errorRate() {
+            return requests > 0 ? (double) errors / requests : 0;
+        }
+
+        double rejectionRate() {
+            return requests > 0 ? (double) rejected / requests : 0;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.load_simulator;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Simulation settings, read from {@code --name=value} arguments. Every setting
+ * has a default, so a bare run simulates a modest clinic.
+ */
+record SimulationConfig(
+        String gateway,
+        String patientPath,
+        String queuePath,
+        int doctors,
+        int departments,
+        int patients,
+        double newPatientRatio,
+        Duration duration,
+        Duration morning,
+        double consultationMinutes,
+        int displaysPerDoctor,
+        Duration displayPoll,
+        int maxInFlight,
+        Duration requestTimeout,
+        long seed,
+        String report) {
+
+    static SimulationConfig parse(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value but got: " + arg);
+            }
+            values.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+
+        return new SimulationConfig(
+                values.getOrDefault("gateway", "http://localhost:8080"),
+                values.getOrDefault("patient-path", "/api/patients"),
+                values.getOrDefault("queue-path", "/api/queue"),
+                Integer.parseInt(values.getOrDefault("doctors", "8")),
+                Integer.parseInt(values.getOrDefault("departments", "3")),
+                Integer.parseInt(values.getOrDefault("patients", "600")),
+                Double.parseDouble(values.getOrDefault("new-patient-ratio", "0.3")),
+                Duration.parse(values.getOrDefault("duration", "PT5M")),
+                Duration.parse(values.getOrDefault("morning", "PT4H")),
+                Double.parseDouble(values.getOrDefault("consultation-minutes", "8")),
+                Integer.parseInt(values.getOrDefault("displays-per-doctor", "1")),
+                Duration.parse(values.getOrDefault("display-poll", "PT5S")),
+                Integer.parseInt(values.getOrDefault("max-in-flight", "256")),
+                Duration.parse(values.getOrDefault("request-timeout", "PT10S")),
+                Long.parseLong(values.getOrDefault("seed", "42")),
+                values.get("report"));
+    }
+
+    /**
+     * How many simulated seconds pass per wall-clock second.
+     */
+    double timeScale() {
+        return (double) morning.toMillis() / duration.toMillis();
+    }
+}
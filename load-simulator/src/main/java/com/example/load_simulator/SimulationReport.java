@@ -0,0 +1,74 @@
+package com.example.load_simulator;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Prints the per-operation results as a table and, with {@code --report=<file>},
+ * also writes them as CSV for comparing runs.
+ */
+final class SimulationReport {
+
+    private SimulationReport() {
+    }
+
+    static void print(Map<String, OperationStats> stats, double elapsedSeconds, SimulationConfig config) {
+        print(stats, elapsedSeconds, config.report());
+    }
+
+    static void print(Map<String, OperationStats> stats, double elapsedSeconds, String report) {
+        List<OperationStats.Summary> summaries = new ArrayList<>();
+        stats.values().forEach(operation -> summaries.add(operation.summarize(elapsedSeconds)));
+        summaries.sort(Comparator.comparing(OperationStats.Summary::operation));
+
+        System.out.printf("%nElapsed %.1fs%n", elapsedSeconds);
+        System.out.printf("%-10s %9s %8s %9s %9s %9s %9s %9s %7s %7s%n", "operation", "requests", "req/s",
+                "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms", "err %", "429 %");
+        long requests = 0;
+        long errors = 0;
+        long rejected = 0;
+        for (OperationStats.Summary s : summaries) {
+            System.out.printf("%-10s %9d %8.1f %9.1f %9.1f %9.1f %9.1f %9.1f %7.2f %7.2f%n", s.operation(),
+                    s.requests(), s.throughput(), millis(s.p50Micros()), millis(s.p90Micros()),
+                    millis(s.p99Micros()), millis(s.p999Micros()), millis(s.maxMicros()),
+                    s.errorRate() * 100, s.rejectionRate() * 100);
+            requests += s.requests();
+            errors += s.errors();
+            rejected += s.rejected();
+        }
+        System.out.printf("%-10s %9d %8.1f %59s %7.2f %7.2f%n", "total", requests, requests / elapsedSeconds, "",
+                requests > 0 ? 100.0 * errors / requests : 0, requests > 0 ? 100.0 * rejected / requests : 0);
+
+        if (report != null) {
+            write(Path.of(report), summaries);
+        }
+    }
+
+    private static void write(Path path, List<OperationStats.Summary> summaries) {
+        StringBuilder csv = new StringBuilder(
+                "operation,requests,throughput,p50_ms,p90_ms,p99_ms,p999_ms,max_ms,errors,rejected\n");
+        for (OperationStats.Summary s : summaries) {
+            csv.append(String.format("%s,%d,%.2f,%.2f,%.2f,%.2f,%.2f,%.2f,%d,%d%n", s.operation(), s.requests(),
+                    s.throughput(), millis(s.p50Micros()), millis(s.p90Micros()), millis(s.p99Micros()),
+                    millis(s.p999Micros()), millis(s.maxMicros()), s.errors(), s.rejected()));
+        }
+        try {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            Files.writeString(path, csv);
+            System.out.println("Report written to " + path);
+        } catch (IOException e) {
+            System.err.println("Could not write report: " + e.getMessage());
+        }
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+}
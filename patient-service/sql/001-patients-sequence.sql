@@ -0,0 +1,10 @@
+-- Moves patients.id from IDENTITY to the pooled patients_seq used by Patient
+-- (allocationSize = 50), so Hibernate can batch inserts.
+-- Run once against existing databases before deploying.
+
+-- Hibernate's pooled optimizer treats each value as the top of a block of 50,
+-- so the first value handed out must be at least MAX(id) + 50.
+CREATE SEQUENCE IF NOT EXISTS patients_seq INCREMENT BY 50;
+SELECT setval('patients_seq', COALESCE((SELECT MAX(id) FROM patients), 0) + 50, false);
+
+ALTER TABLE patients ALTER COLUMN id DROP IDENTITY IF EXISTS;
@@ -0,0 +1,21 @@
+-- Indexes behind GET /api/patients/search. Each expression must match the one
+-- built in PatientSearchRepositoryImpl exactly, or the planner ignores it.
+-- CONCURRENTLY keeps the table writable while they build; run outside a
+-- transaction block.
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+-- Name fragments anywhere in "first last", e.g. "ohn sm".
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_patients_full_name_trgm
+    ON patients USING gin (lower(first_name || ' ' || last_name) gin_trgm_ops);
+
+-- Phone and email are searched by prefix; trigram indexes serve LIKE 'abc%'
+-- with a bound parameter too, which a text_pattern_ops b-tree only does when
+-- the driver plans with the literal value.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_patients_phone_trgm
+    ON patients USING gin (phone_number gin_trgm_ops);
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_patients_email_trgm
+    ON patients USING gin (lower(email) gin_trgm_ops);
+
+ANALYZE patients;
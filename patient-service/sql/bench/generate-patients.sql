@@ -0,0 +1,47 @@
+-- Benchmark dataset for patient search: a few million synthetic patients with
+-- realistically repetitive names and unique phones/emails.
+--
+--   psql -v rows=3000000 -f sql/bench/generate-patients.sql <db>
+--
+-- Run against a scratch database after the application has created the schema
+-- and sql/001 + sql/002 have been applied. Ids come from patients_seq, so the
+-- application can keep inserting afterwards.
+
+\if :{?rows}
+\else
+\set rows 3000000
+\endif
+
+\timing on
+
+INSERT INTO patients (id, patient_id, first_name, last_name, date_of_birth, gender, phone_number, email,
+                      password, street, city, state, zip_code, country, blood_group, status,
+                      created_at, updated_at)
+SELECT nextval('patients_seq'),
+       'PAT-BENCH-' || lpad(n::text, 8, '0'),
+       f.name,
+       l.name,
+       DATE '1940-01-01' + (random() * 30000)::int,
+       (ARRAY['MALE', 'FEMALE', 'OTHER'])[1 + n % 3],
+       '+2507' || lpad(n::text, 8, '0'),
+       lower(f.name) || '.' || lower(l.name) || '.' || n || '@example.org',
+       -- Placeholder hash; benchmark patients are never meant to log in
+       '$2a$10$7EqJtq98hPqEX7fNZaFWoOhi5BWX4Z2.xPjv7B1z4y2C8sF2Q8Pqm',
+       n || ' Main Street', 'Kigali', 'Kigali', lpad((n % 99999)::text, 5, '0'), 'Rwanda',
+       (ARRAY['A+', 'A-', 'B+', 'B-', 'AB+', 'AB-', 'O+', 'O-'])[1 + n % 8],
+       'ACTIVE', now(), now()
+FROM generate_series(1, :rows) AS n
+CROSS JOIN LATERAL (SELECT (ARRAY['Alice', 'Jean', 'Marie', 'Eric', 'Grace', 'Patrick', 'Aline', 'Claude',
+                                  'Diane', 'Emmanuel', 'Sandrine', 'Olivier', 'Chantal', 'David', 'Josiane',
+                                  'Innocent', 'Yvonne', 'Samuel', 'Clarisse', 'Thierry', 'Esther', 'Kevin',
+                                  'Divine', 'Fabrice', 'Ange', 'Joseph', 'Solange', 'Pacifique', 'Nadine',
+                                  'Gilbert'])[1 + (n * 7) % 30] AS name) f
+CROSS JOIN LATERAL (SELECT (ARRAY['Uwimana', 'Mugisha', 'Niyonzima', 'Habimana', 'Mukamana', 'Nshimiyimana',
+                                  'Uwase', 'Ndayisaba', 'Iradukunda', 'Hakizimana', 'Ingabire', 'Bizimana',
+                                  'Niyitegeka', 'Mutoni', 'Nsengiyumva', 'Umutoni', 'Twagirayezu', 'Kamanzi',
+                                  'Gatete', 'Rukundo', 'Munyaneza', 'Uwera', 'Nkurunziza', 'Murenzi',
+                                  'Tuyishime', 'Karangwa', 'Mukeshimana', 'Ntwari', 'Byiringiro', 'Kayitesi',
+                                  'Smith', 'Johnson', 'Okafor', 'Mensah', 'Kimani', 'Otieno', 'Banda',
+                                  'Dlamini', 'Nkosi', 'Mwangi'])[1 + (n * 13) % 40] AS name) l;
+
+ANALYZE patients;
@@ -0,0 +1,33 @@
+#!/usr/bin/env sh
+# Replays the search queries with pgbench and prints latency percentiles.
+#
+#   sql/bench/run-search-bench.sh <db> [rows] [clients] [seconds]
+#
+# Expects sql/bench/generate-patients.sql to have loaded <rows> patients. The
+# name and email scripts look up their search term by patient_id first; that
+# point lookup is included in the reported latency, so real searches are a
+# little faster than the numbers printed.
+set -e
+
+DB=${1:?database name required}
+ROWS=${2:-3000000}
+CLIENTS=${3:-16}
+SECONDS_TO_RUN=${4:-60}
+DIR=$(cd "$(dirname "$0")" && pwd)
+LOG_DIR=$(mktemp -d)
+
+cd "$LOG_DIR"
+pgbench -n -M prepared -c "$CLIENTS" -j "$CLIENTS" -T "$SECONDS_TO_RUN" -D rows="$ROWS" \
+    -f "$DIR/search-name.pgbench@6" -f "$DIR/search-phone.pgbench@3" -f "$DIR/search-email.pgbench@1" \
+    --log --log-prefix=search "$DB"
+
+# Third column of the per-transaction log is latency in microseconds
+cat search.* | awk '{ print $3 }' | sort -n | awk '
+    { latency[NR] = $1 }
+    END {
+        printf "transactions: %d\n", NR
+        printf "p50: %.2f ms\n", latency[int(NR * 0.50)] / 1000
+        printf "p95: %.2f ms\n", latency[int(NR * 0.95)] / 1000
+        printf "p99: %.2f ms\n", latency[int(NR * 0.99)] / 1000
+    }'
+rm -rf "$LOG_DIR"
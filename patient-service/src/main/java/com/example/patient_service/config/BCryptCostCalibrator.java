@@ -0,0 +1,49 @@
+package com.example.patient_service.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.time.Duration;
+
+/**
+ * Picks the BCrypt cost factor whose hash time on this machine comes closest to
+ * a target without exceeding it. Each cost step doubles the work, so one timed
+ * run at the minimum cost predicts the rest; the pick is then timed once more
+ * and stepped down if the prediction was optimistic.
+ */
+@Slf4j
+final class BCryptCostCalibrator {
+
+    private static final String SAMPLE = "calibration-sample-password";
+    private static final int WARMUP_RUNS = 2;
+
+    private BCryptCostCalibrator() {
+    }
+
+    static int calibrate(Duration target, int minCost, int maxCost) {
+        double baseMillis = measure(minCost);
+        int cost = minCost;
+        while (cost < maxCost && baseMillis * (1L << (cost + 1 - minCost)) <= target.toMillis()) {
+            cost++;
+        }
+
+        double millis = cost == minCost ? baseMillis : measure(cost);
+        while (cost > minCost && millis > target.toMillis()) {
+            cost--;
+            millis = measure(cost);
+        }
+
+        log.info("BCrypt cost {} takes {} ms per hash (target {} ms)", cost, Math.round(millis), target.toMillis());
+        return cost;
+    }
+
+    private static double measure(int cost) {
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(cost);
+        for (int i = 0; i < WARMUP_RUNS; i++) {
+            encoder.encode(SAMPLE);
+        }
+        long start = System.nanoTime();
+        encoder.encode(SAMPLE);
+        return (System.nanoTime() - start) / 1_000_000.0;
+    }
+}
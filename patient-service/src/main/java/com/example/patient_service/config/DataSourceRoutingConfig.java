@@ -0,0 +1,68 @@
+package com.example.patient_service.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Replaces the auto-configured pool with a primary pool plus one pool per read
+ * replica when {@code patient.datasource.replica-urls} is set. Without replicas
+ * Spring Boot's single pool is left alone. Replicas share the primary's
+ * credentials.
+ */
+@Configuration
+@ConditionalOnExpression("'${patient.datasource.replica-urls:}' != ''")
+public class DataSourceRoutingConfig {
+
+    @Bean
+    public DataSource dataSource(MeterRegistry meterRegistry,
+                                 @Value("${spring.datasource.url}") String url,
+                                 @Value("${spring.datasource.username:}") String username,
+                                 @Value("${spring.datasource.password:}") String password,
+                                 @Value("${spring.datasource.hikari.maximum-pool-size:10}") int primaryPoolSize,
+                                 @Value("${patient.datasource.replica-urls}") List<String> replicaUrls,
+                                 @Value("${patient.datasource.replica-pool-size:10}") int replicaPoolSize,
+                                 @Value("${patient.datasource.replica-connection-timeout-ms:1000}") long replicaTimeoutMs,
+                                 @Value("${patient.datasource.replica-retry-ms:10000}") long replicaRetryMs) {
+        MicrometerMetricsTrackerFactory metrics = new MicrometerMetricsTrackerFactory(meterRegistry);
+
+        HikariConfig primaryConfig = poolConfig("patient-primary", url, username, password, primaryPoolSize, metrics);
+        DataSource primary = new HikariDataSource(primaryConfig);
+
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for (int i = 0; i < replicaUrls.size(); i++) {
+            String name = "patient-replica-" + (i + 1);
+            HikariConfig config = poolConfig(name, replicaUrls.get(i).trim(), username, password, replicaPoolSize, metrics);
+            config.setReadOnly(true);
+            // Fail fast to the primary instead of queueing behind a dead replica
+            config.setConnectionTimeout(replicaTimeoutMs);
+            config.setInitializationFailTimeout(-1);
+            replicas.put(name, new HikariDataSource(config));
+        }
+
+        return new LazyConnectionDataSourceProxy(new ReplicaRoutingDataSource(primary, replicas, replicaRetryMs));
+    }
+
+    private static HikariConfig poolConfig(String name, String url, String username, String password, int size,
+                                           MicrometerMetricsTrackerFactory metrics) {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName(name);
+        config.setJdbcUrl(url);
+        config.setUsername(username);
+        config.setPassword(password);
+        config.setMaximumPoolSize(size);
+        config.setMetricsTrackerFactory(metrics);
+        return config;
+    }
+}
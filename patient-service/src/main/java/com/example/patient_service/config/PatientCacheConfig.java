@@ -0,0 +1,24 @@
+package com.example.patient_service.config;
+
+import com.example.patient_service.service.PatientProfileCache;
+import com.example.patient_service.service.ReplicaLagGuard;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+@Configuration
+public class PatientCacheConfig {
+
+    @Bean
+    public RedisMessageListenerContainer profileInvalidationListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                              PatientProfileCache profileCache,
+                                                                              ReplicaLagGuard replicaLagGuard) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(profileCache, new ChannelTopic(PatientProfileCache.CHANNEL));
+        container.addMessageListener(replicaLagGuard, new ChannelTopic(PatientProfileCache.CHANNEL));
+        return container;
+    }
+}
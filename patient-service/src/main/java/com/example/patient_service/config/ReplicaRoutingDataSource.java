@@ -0,0 +1,107 @@
+package com.example.patient_service.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Sends read-only transactions to the replica pools, round robin, and everything
+ * else to the primary. It must sit behind a {@code LazyConnectionDataSourceProxy},
+ * so the connection is only taken once the transaction's read-only flag is known.
+ *
+ * <p>A replica that fails to hand out a connection is skipped for
+ * {@code retryMs} and the read is served by the primary instead. Work that has to
+ * see its own recent writes can be pinned to the primary with {@link #onPrimary}.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    static final String PRIMARY = "primary";
+
+    private static final ThreadLocal<Boolean> FORCE_PRIMARY = new ThreadLocal<>();
+
+    private final DataSource primary;
+    private final List<String> replicas;
+    private final long retryMs;
+    private final Map<String, Long> downUntil = new ConcurrentHashMap<>();
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReplicaRoutingDataSource(DataSource primary, Map<String, DataSource> replicas, long retryMs) {
+        this.primary = primary;
+        this.replicas = List.copyOf(replicas.keySet());
+        this.retryMs = retryMs;
+
+        Map<Object, Object> targets = new HashMap<>(replicas);
+        targets.put(PRIMARY, primary);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    /**
+     * Runs {@code work} with every connection it opens taken from the primary,
+     * read-only or not. Has no effect on a transaction already holding a connection.
+     */
+    public static <T> T onPrimary(Supplier<T> work) {
+        Boolean previous = FORCE_PRIMARY.get();
+        FORCE_PRIMARY.set(Boolean.TRUE);
+        try {
+            return work.get();
+        } finally {
+            if (previous == null) {
+                FORCE_PRIMARY.remove();
+            } else {
+                FORCE_PRIMARY.set(previous);
+            }
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                || Boolean.TRUE.equals(FORCE_PRIMARY.get())) {
+            return PRIMARY;
+        }
+
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < replicas.size(); i++) {
+            String replica = replicas.get(Math.floorMod(next.getAndIncrement(), replicas.size()));
+            Long until = downUntil.get(replica);
+            if (until == null || until <= now) {
+                return replica;
+            }
+        }
+        return PRIMARY;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        Object key = determineCurrentLookupKey();
+        if (PRIMARY.equals(key)) {
+            return primary.getConnection();
+        }
+
+        try {
+            Connection connection = getResolvedDataSources().get(key).getConnection();
+            if (downUntil.remove(key) != null) {
+                log.info("Replica {} is back, routing reads to it again", key);
+            }
+            return connection;
+        } catch (SQLException e) {
+            if (downUntil.put((String) key, System.currentTimeMillis() + retryMs) == null) {
+                log.warn("Replica {} unavailable, reading from the primary for {} ms", key, retryMs, e);
+            }
+            return primary.getConnection();
+        }
+    }
+}
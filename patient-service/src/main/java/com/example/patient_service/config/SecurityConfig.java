@@ -1,5 +1,6 @@
 package com.example.patient_service.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -8,13 +9,22 @@ import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 
+import java.time.Duration;
+
 @Configuration
 @EnableWebSecurity
 public class SecurityConfig {
 
+    /**
+     * BCrypt with its cost calibrated to the target hash time on this machine.
+     * Existing hashes keep verifying whatever cost they were made with.
+     */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(
+            @Value("${patient.hashing.target-ms:250}") long targetMs,
+            @Value("${patient.hashing.min-cost:10}") int minCost,
+            @Value("${patient.hashing.max-cost:14}") int maxCost) {
+        return new BCryptPasswordEncoder(BCryptCostCalibrator.calibrate(Duration.ofMillis(targetMs), minCost, maxCost));
     }
 
     @Bean
@@ -23,6 +33,7 @@ public class SecurityConfig {
                 .csrf(csrf -> csrf.disable())
                 .authorizeHttpRequests(auth -> auth
                         .requestMatchers("/api/patients/**").permitAll()
+                        .requestMatchers("/actuator/health", "/actuator/prometheus").permitAll()
                         .anyRequest().authenticated()
                 );
 
@@ -1,20 +1,30 @@
 package com.example.patient_service.controller;
 
+import com.example.patient_service.dto.ImportReport;
+import com.example.patient_service.dto.PatientBatchRequest;
+import com.example.patient_service.dto.PatientBatchResponse;
+import com.example.patient_service.dto.PatientClinicalView;
 import com.example.patient_service.dto.PatientRegistrationRequest;
 import com.example.patient_service.dto.PatientResponse;
+import com.example.patient_service.dto.PatientSearchResponse;
+import com.example.patient_service.service.PatientImportService;
 import com.example.patient_service.service.PatientService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.InputStream;
+
 @RestController
 @RequestMapping("/api/patients")
 @RequiredArgsConstructor
 public class PatientController {
 
     private final PatientService patientService;
+    private final PatientImportService patientImportService;
 
     @PostMapping("/register")
     public ResponseEntity<PatientResponse> registerPatient(
@@ -23,12 +33,50 @@ public class PatientController {
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
 
+    /**
+     * Bulk import of a CSV (with header row) or NDJSON body, streamed in chunks.
+     */
+    @PostMapping(value = "/import", consumes = {"text/csv", "application/x-ndjson"})
+    public ResponseEntity<ImportReport> importPatients(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            InputStream body) {
+        ImportReport report = patientImportService.importPatients(body, contentType);
+        return ResponseEntity.ok(report);
+    }
+
+    /**
+     * Looks up many patients at once; ids that match no patient are listed in
+     * {@code missingIds}.
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<PatientBatchResponse> getPatients(@Valid @RequestBody PatientBatchRequest request) {
+        PatientBatchResponse response = patientService.getPatientsByIds(request.getPatientIds());
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<PatientSearchResponse> searchPatients(
+            @RequestParam(required = false) String name,
+            @RequestParam(required = false) String phone,
+            @RequestParam(required = false) String email,
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) Integer limit) {
+        PatientSearchResponse response = patientService.searchPatients(name, phone, email, after, limit);
+        return ResponseEntity.ok(response);
+    }
+
     @GetMapping("/{patientId}")
     public ResponseEntity<PatientResponse> getPatient(@PathVariable String patientId) {
         PatientResponse response = patientService.getPatientById(patientId);
         return ResponseEntity.ok(response);
     }
 
+    @GetMapping("/{patientId}/clinical")
+    public ResponseEntity<PatientClinicalView> getClinicalView(@PathVariable String patientId) {
+        PatientClinicalView response = patientService.getClinicalView(patientId);
+        return ResponseEntity.ok(response);
+    }
+
     @PutMapping("/{patientId}")
     public ResponseEntity<PatientResponse> updatePatient(
             @PathVariable String patientId,
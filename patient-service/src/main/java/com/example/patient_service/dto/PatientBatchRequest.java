@@ -0,0 +1,20 @@
+package com.example.patient_service.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PatientBatchRequest {
+
+    @NotEmpty(message = "At least one patient ID is required")
+    private List<@NotBlank(message = "Patient IDs must not be blank") String> patientIds;
+}
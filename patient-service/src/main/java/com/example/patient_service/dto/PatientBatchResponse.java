@@ -0,0 +1,18 @@
+package com.example.patient_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PatientBatchResponse {
+    // In request order, duplicates collapsed
+    private List<PatientResponse> patients;
+    private List<String> missingIds;
+}
@@ -0,0 +1,17 @@
+package com.example.patient_service.dto;
+
+import java.time.LocalDate;
+
+/**
+ * Read-only projection for clinicians: identity plus blood group, medical
+ * history and allergies, without contact details or credentials.
+ */
+public record PatientClinicalView(
+        String patientId,
+        String firstName,
+        String lastName,
+        LocalDate dateOfBirth,
+        String bloodGroup,
+        String medicalHistory,
+        String allergies) {
+}
@@ -0,0 +1,52 @@
+package com.example.patient_service.dto;
+
+import jakarta.validation.constraints.*;
+import lombok.*;
+
+import java.time.LocalDate;
+
+/**
+ * One record of a bulk import. Mirrors {@link PatientRegistrationRequest}, except
+ * that the password may instead arrive already hashed by the source system as
+ * {@code passwordHash} (BCrypt), which spares the import the hashing cost.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PatientImportRow {
+
+    @NotBlank(message = "First name is required")
+    @Size(min = 2, max = 50)
+    private String firstName;
+
+    @NotBlank(message = "Last name is required")
+    @Size(min = 2, max = 50)
+    private String lastName;
+
+    @NotNull(message = "Date of birth is required")
+    @Past(message = "Date of birth must be in the past")
+    private LocalDate dateOfBirth;
+
+    @NotBlank(message = "Gender is required")
+    private String gender;
+
+    @NotBlank(message = "Phone number is required")
+    @Pattern(regexp = "^\\+?[1-9]\\d{1,14}$")
+    private String phoneNumber;
+
+    @Email(message = "Invalid email format")
+    @NotBlank(message = "Email is required")
+    private String email;
+
+    @Size(min = 8, message = "Password must be at least 8 characters")
+    private String password;
+
+    @Pattern(regexp = "^\\$2[aby]?\\$\\d{2}\\$[./A-Za-z0-9]{53}$", message = "Password hash must be BCrypt")
+    private String passwordHash;
+
+    private AddressDTO address;
+    private String bloodGroup;
+    private String medicalHistory;
+    private String allergies;
+}
@@ -0,0 +1,18 @@
+package com.example.patient_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PatientSearchResponse {
+    private List<PatientResponse> patients;
+    // Pass back as 'after' for the next page; null on the last page
+    private Long nextCursor;
+}
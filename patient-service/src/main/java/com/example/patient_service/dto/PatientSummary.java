@@ -0,0 +1,28 @@
+package com.example.patient_service.dto;
+
+import com.example.patient_service.model.Patient;
+
+import java.time.LocalDate;
+
+/**
+ * Read-only projection of the columns behind {@link PatientResponse}. Selected
+ * directly by the repository, so the password hash and clinical notes are never
+ * loaded and nothing enters the persistence context.
+ */
+public record PatientSummary(
+        Long id,
+        String patientId,
+        String firstName,
+        String lastName,
+        LocalDate dateOfBirth,
+        Patient.Gender gender,
+        String phoneNumber,
+        String email,
+        String street,
+        String city,
+        String state,
+        String zipCode,
+        String country,
+        String bloodGroup,
+        Patient.PatientStatus status) {
+}
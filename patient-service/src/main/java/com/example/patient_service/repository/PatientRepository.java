@@ -1,16 +1,55 @@
 package com.example.patient_service.repository;
 
+import com.example.patient_service.dto.PatientClinicalView;
+import com.example.patient_service.dto.PatientSummary;
 import com.example.patient_service.model.Patient;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @Repository
-public interface PatientRepository extends JpaRepository<Patient, Long> {
+public interface PatientRepository extends JpaRepository<Patient, Long>, PatientSearchRepository {
+
+    // Constructor arguments of PatientSummary, in order
+    String SUMMARY_COLUMNS = "p.id, p.patientId, p.firstName, p.lastName, p.dateOfBirth, p.gender,"
+            + " p.phoneNumber, p.email, p.address.street, p.address.city, p.address.state,"
+            + " p.address.zipCode, p.address.country, p.bloodGroup, p.status";
+
     Optional<Patient> findByPatientId(String patientId);
     Optional<Patient> findByEmail(String email);
     Optional<Patient> findByPhoneNumber(String phoneNumber);
     boolean existsByEmail(String email);
     boolean existsByPhoneNumber(String phoneNumber);
+
+    @Transactional(readOnly = true)
+    @Query("select new com.example.patient_service.dto.PatientSummary(" + SUMMARY_COLUMNS + ")"
+            + " from Patient p where p.patientId = :patientId")
+    Optional<PatientSummary> findSummaryByPatientId(@Param("patientId") String patientId);
+
+    @Transactional(readOnly = true)
+    @Query("select new com.example.patient_service.dto.PatientSummary(" + SUMMARY_COLUMNS + ")"
+            + " from Patient p where p.patientId in :patientIds")
+    List<PatientSummary> findSummariesByPatientIdIn(@Param("patientIds") Collection<String> patientIds);
+
+    @Transactional(readOnly = true)
+    @Query("select new com.example.patient_service.dto.PatientClinicalView(p.patientId, p.firstName, p.lastName,"
+            + " p.dateOfBirth, p.bloodGroup, p.medicalHistory, p.allergies)"
+            + " from Patient p where p.patientId = :patientId")
+    Optional<PatientClinicalView> findClinicalViewByPatientId(@Param("patientId") String patientId);
+
+    @Query("select p.email from Patient p where p.email in :emails")
+    Set<String> findExistingEmails(@Param("emails") Collection<String> emails);
+
+    @Query("select p.phoneNumber from Patient p where p.phoneNumber in :phoneNumbers")
+    Set<String> findExistingPhoneNumbers(@Param("phoneNumbers") Collection<String> phoneNumbers);
+
+    @Query("select p.patientId from Patient p where p.patientId in :patientIds")
+    Set<String> findExistingPatientIds(@Param("patientIds") Collection<String> patientIds);
 }
\ No newline at end of file
@@ -0,0 +1,15 @@
+package com.example.patient_service.repository;
+
+import com.example.patient_service.dto.PatientSummary;
+
+import java.util.List;
+
+public interface PatientSearchRepository {
+
+    /**
+     * Patients matching every given criterion, in id order after {@code afterId}.
+     * Null criteria are left out of the query entirely, so each combination is
+     * planned against the indexes from {@code sql/002-patient-search-indexes.sql}.
+     */
+    List<PatientSummary> search(String name, String phonePrefix, String emailPrefix, long afterId, int limit);
+}
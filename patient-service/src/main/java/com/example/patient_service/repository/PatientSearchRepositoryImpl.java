@@ -0,0 +1,84 @@
+package com.example.patient_service.repository;
+
+import com.example.patient_service.dto.PatientSummary;
+import com.example.patient_service.model.Patient;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import jakarta.persistence.Tuple;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+class PatientSearchRepositoryImpl implements PatientSearchRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Summary columns only; the password hash and clinical notes stay in the table
+    private static final String COLUMNS = "p.id, p.patient_id, p.first_name, p.last_name, p.date_of_birth, p.gender,"
+            + " p.phone_number, p.email, p.street, p.city, p.state, p.zip_code, p.country, p.blood_group, p.status";
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<PatientSummary> search(String name, String phonePrefix, String emailPrefix, long afterId, int limit) {
+        StringBuilder sql = new StringBuilder("SELECT " + COLUMNS + " FROM patients p WHERE p.id > :afterId");
+        Map<String, Object> parameters = new LinkedHashMap<>();
+        parameters.put("afterId", afterId);
+
+        // Expressions match the trigram indexes exactly, otherwise they are not used
+        if (name != null) {
+            sql.append(" AND lower(p.first_name || ' ' || p.last_name) LIKE :name");
+            parameters.put("name", "%" + escapeLike(name) + "%");
+        }
+        if (phonePrefix != null) {
+            sql.append(" AND p.phone_number LIKE :phone");
+            parameters.put("phone", escapeLike(phonePrefix) + "%");
+        }
+        if (emailPrefix != null) {
+            sql.append(" AND lower(p.email) LIKE :email");
+            parameters.put("email", escapeLike(emailPrefix) + "%");
+        }
+        sql.append(" ORDER BY p.id LIMIT :limit");
+        parameters.put("limit", limit);
+
+        Query query = entityManager.createNativeQuery(sql.toString(), Tuple.class);
+        parameters.forEach(query::setParameter);
+        return ((List<Tuple>) query.getResultList()).stream()
+                .map(PatientSearchRepositoryImpl::toSummary)
+                .toList();
+    }
+
+    private static PatientSummary toSummary(Tuple row) {
+        String gender = row.get("gender", String.class);
+        String status = row.get("status", String.class);
+        return new PatientSummary(
+                row.get("id", Number.class).longValue(),
+                row.get("patient_id", String.class),
+                row.get("first_name", String.class),
+                row.get("last_name", String.class),
+                toLocalDate(row.get("date_of_birth")),
+                gender != null ? Patient.Gender.valueOf(gender) : null,
+                row.get("phone_number", String.class),
+                row.get("email", String.class),
+                row.get("street", String.class),
+                row.get("city", String.class),
+                row.get("state", String.class),
+                row.get("zip_code", String.class),
+                row.get("country", String.class),
+                row.get("blood_group", String.class),
+                status != null ? Patient.PatientStatus.valueOf(status) : null);
+    }
+
+    // Drivers and Hibernate versions differ on whether DATE comes back as java.sql.Date
+    private static LocalDate toLocalDate(Object value) {
+        return value instanceof Date date ? date.toLocalDate() : (LocalDate) value;
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.patient_service.service;
+
+import com.example.patient_service.exception.HashingCapacityExceededException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs password hashing on a dedicated, bounded pool so BCrypt's CPU time never
+ * occupies request threads beyond a short wait, and never runs while a database
+ * connection is held. When the pool and its queue are full, or a hash cannot
+ * finish in time, callers get a 503 right away instead of piling up behind it.
+ * Pool size, queue depth and rejections are published as metrics.
+ */
+@Service
+@Slf4j
+public class PasswordHashingService {
+
+    private final PasswordEncoder passwordEncoder;
+    private final ExecutorService executor;
+    private final Timer hashTimer;
+    private final Counter rejections;
+    private final long timeoutMs;
+
+    public PasswordHashingService(PasswordEncoder passwordEncoder, MeterRegistry meterRegistry,
+                                  @Value("${patient.hashing.threads:0}") int threads,
+                                  @Value("${patient.hashing.queue-capacity:64}") int queueCapacity,
+                                  @Value("${patient.hashing.timeout-ms:5000}") long timeoutMs) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadNumber = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hashing-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        this.passwordEncoder = passwordEncoder;
+        this.executor = ExecutorServiceMetrics.monitor(meterRegistry, pool, "password.hashing");
+        this.hashTimer = Timer.builder("patient.password.hash")
+                .description("Time to hash a password, including the wait for a hashing thread")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.rejections = Counter.builder("patient.password.hash.rejected")
+                .description("Hash requests turned away because the hashing pool was saturated")
+                .register(meterRegistry);
+        this.timeoutMs = timeoutMs;
+    }
+
+    public String hash(String rawPassword) {
+        Timer.Sample sample = Timer.start();
+        Future<String> hashed;
+        try {
+            hashed = executor.submit(() -> passwordEncoder.encode(rawPassword));
+        } catch (RejectedExecutionException e) {
+            rejections.increment();
+            throw new HashingCapacityExceededException("Registration is busy, please retry shortly");
+        }
+
+        try {
+            return hashed.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            hashed.cancel(true);
+            rejections.increment();
+            throw new HashingCapacityExceededException("Registration is busy, please retry shortly");
+        } catch (InterruptedException e) {
+            hashed.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new HashingCapacityExceededException("Password hashing was interrupted");
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        } finally {
+            sample.stop(hashTimer);
+        }
+    }
+
+    /**
+     * Hashes passwords for a bulk import, in order. Instead of being turned away
+     * when the pool is full, the import waits for its own oldest hash, so it runs
+     * at pool speed without ever queueing more than the pool allows.
+     */
+    public List<String> hashAll(List<String> rawPasswords) {
+        List<Future<String>> hashes = new ArrayList<>(rawPasswords.size());
+        int awaited = 0;
+        for (String rawPassword : rawPasswords) {
+            while (true) {
+                try {
+                    hashes.add(executor.submit(() -> passwordEncoder.encode(rawPassword)));
+                    break;
+                } catch (RejectedExecutionException e) {
+                    if (awaited < hashes.size()) {
+                        await(hashes.get(awaited++));
+                    } else {
+                        // The pool is full of other callers' work; back off briefly
+                        await(CompletableFuture.runAsync(() -> { },
+                                CompletableFuture.delayedExecutor(10, TimeUnit.MILLISECONDS)));
+                    }
+                }
+            }
+        }
+        return hashes.stream().map(this::await).toList();
+    }
+
+    private <T> T await(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new HashingCapacityExceededException("Password hashing was interrupted");
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
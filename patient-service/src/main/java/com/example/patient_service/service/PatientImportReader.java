@@ -0,0 +1,201 @@
+package com.example.patient_service.service;
+
+import com.example.patient_service.dto.AddressDTO;
+import com.example.patient_service.dto.PatientImportRow;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Streams import records one at a time from CSV (with a header row, RFC 4180
+ * quoting) or NDJSON, so an import of any size holds only the current chunk in
+ * memory. A record that cannot be parsed is returned with an error instead of
+ * ending the import.
+ */
+final class PatientImportReader implements Closeable {
+
+    enum Format {
+        CSV, NDJSON;
+
+        static Format fromContentType(String contentType) {
+            if (contentType != null && contentType.toLowerCase().startsWith("text/csv")) {
+                return CSV;
+            }
+            return NDJSON;
+        }
+    }
+
+    record Record(long number, PatientImportRow row, String error) {
+    }
+
+    private final BufferedReader reader;
+    private final Format format;
+    private final JsonMapper jsonMapper;
+    private final List<String> header;
+    private long number;
+    private Record next;
+
+    PatientImportReader(InputStream input, Format format, JsonMapper jsonMapper) {
+        this.reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        this.format = format;
+        this.jsonMapper = jsonMapper;
+        List<String> firstRecord = format == Format.CSV ? readCsvRecord() : null;
+        this.header = firstRecord != null
+                ? firstRecord.stream().map(name -> name.replace("\uFEFF", "").trim()).toList()
+                : List.of();
+    }
+
+    boolean hasNext() {
+        if (next == null) {
+            next = read();
+        }
+        return next != null;
+    }
+
+    Record next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Record record = next;
+        next = null;
+        return record;
+    }
+
+    private Record read() {
+        if (format == Format.NDJSON) {
+            String line;
+            do {
+                line = readLine();
+            } while (line != null && line.isBlank());
+            if (line == null) {
+                return null;
+            }
+            number++;
+            try {
+                return new Record(number, jsonMapper.readValue(line, PatientImportRow.class), null);
+            } catch (JacksonException e) {
+                return new Record(number, null, "Malformed JSON: " + e.getOriginalMessage());
+            }
+        }
+
+        List<String> values = readCsvRecord();
+        if (values == null) {
+            return null;
+        }
+        number++;
+        if (values.size() != header.size()) {
+            return new Record(number, null, "Expected " + header.size() + " columns but found " + values.size());
+        }
+        Map<String, String> fields = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            String value = values.get(i).trim();
+            fields.put(header.get(i), value.isEmpty() ? null : value);
+        }
+        try {
+            return new Record(number, toRow(fields), null);
+        } catch (DateTimeParseException e) {
+            return new Record(number, null, "Invalid dateOfBirth: " + fields.get("dateOfBirth"));
+        }
+    }
+
+    private static PatientImportRow toRow(Map<String, String> fields) {
+        AddressDTO address = null;
+        if (fields.get("street") != null || fields.get("city") != null || fields.get("state") != null
+                || fields.get("zipCode") != null || fields.get("country") != null) {
+            address = new AddressDTO(fields.get("street"), fields.get("city"), fields.get("state"),
+                    fields.get("zipCode"), fields.get("country"));
+        }
+
+        return PatientImportRow.builder()
+                .firstName(fields.get("firstName"))
+                .lastName(fields.get("lastName"))
+                .dateOfBirth(fields.get("dateOfBirth") != null ? LocalDate.parse(fields.get("dateOfBirth")) : null)
+                .gender(fields.get("gender"))
+                .phoneNumber(fields.get("phoneNumber"))
+                .email(fields.get("email"))
+                .password(fields.get("password"))
+                .passwordHash(fields.get("passwordHash"))
+                .address(address)
+                .bloodGroup(fields.get("bloodGroup"))
+                .medicalHistory(fields.get("medicalHistory"))
+                .allergies(fields.get("allergies"))
+                .build();
+    }
+
+    /**
+     * Reads one CSV record, which may span lines when a quoted field contains
+     * line breaks. Returns {@code null} at end of input.
+     */
+    private List<String> readCsvRecord() {
+        String line;
+        do {
+            line = readLine();
+        } while (line != null && line.isBlank());
+        if (line == null) {
+            return null;
+        }
+
+        List<String> values = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        while (true) {
+            for (int i = 0; i < line.length(); i++) {
+                char c = line.charAt(i);
+                if (quoted) {
+                    if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        field.append('"');
+                        i++;
+                    } else if (c == '"') {
+                        quoted = false;
+                    } else {
+                        field.append(c);
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',') {
+                    values.add(field.toString());
+                    field.setLength(0);
+                } else {
+                    field.append(c);
+                }
+            }
+            if (!quoted) {
+                break;
+            }
+            line = readLine();
+            if (line == null) {
+                break;
+            }
+            field.append('\n');
+        }
+        values.add(field.toString());
+        return values;
+    }
+
+    private String readLine() {
+        try {
+            return reader.readLine();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read import input", e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
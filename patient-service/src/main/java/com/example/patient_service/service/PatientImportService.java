@@ -0,0 +1,307 @@
+package com.example.patient_service.service;
+
+import com.example.patient_service.dto.ImportReport;
+import com.example.patient_service.dto.PatientImportRow;
+import com.example.patient_service.model.Address;
+import com.example.patient_service.model.Patient;
+import com.example.patient_service.repository.PatientRepository;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Bulk patient import for registry migrations. Input is streamed and handled in
+ * chunks: each chunk is validated, checked for email and phone uniqueness
+ * against the rest of the import and against the database with one set-based
+ * query per field, and inserted in one transaction as JDBC batches (patient ids
+ * come from a pooled sequence). Bad rows are reported and skipped, never
+ * failing the rest of the import.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PatientImportService {
+
+    private static final Pattern VIOLATED_KEY = Pattern.compile("Key \\((\\w+)\\)=");
+    private static final int MAX_PATIENT_ID_ATTEMPTS = 3;
+
+    private final PatientRepository patientRepository;
+    private final PasswordHashingService passwordHashingService;
+    private final TransactionTemplate transactionTemplate;
+    private final Validator validator;
+    private final JsonMapper jsonMapper;
+
+    @Value("${patient.import.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${patient.import.max-reported-errors:1000}")
+    private int maxReportedErrors;
+
+    public ImportReport importPatients(InputStream input, String contentType) {
+        long started = System.nanoTime();
+        Progress progress = new Progress();
+
+        try (PatientImportReader reader = new PatientImportReader(input,
+                PatientImportReader.Format.fromContentType(contentType), jsonMapper)) {
+            List<PatientImportReader.Record> chunk = new ArrayList<>(chunkSize);
+            while (reader.hasNext()) {
+                chunk.add(reader.next());
+                if (chunk.size() == chunkSize) {
+                    importChunk(chunk, progress);
+                    chunk.clear();
+                    log.info("Imported {} of {} patients so far", progress.imported, progress.total);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                importChunk(chunk, progress);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read import input", e);
+        }
+
+        long elapsedMillis = (System.nanoTime() - started) / 1_000_000;
+        log.info("Patient import finished: {} imported, {} failed in {} ms",
+                progress.imported, progress.failed(), elapsedMillis);
+
+        return ImportReport.builder()
+                .totalRows(progress.total)
+                .imported(progress.imported)
+                .failed(progress.failed())
+                .elapsedMillis(elapsedMillis)
+                .rowsPerSecond(elapsedMillis > 0 ? progress.imported * 1000.0 / elapsedMillis : progress.imported)
+                .errors(progress.errors)
+                .errorsTruncated(progress.failed() > progress.errors.size())
+                .build();
+    }
+
+    private void importChunk(List<PatientImportReader.Record> records, Progress progress) {
+        progress.total += records.size();
+
+        List<Candidate> candidates = new ArrayList<>(records.size());
+        for (PatientImportReader.Record record : records) {
+            String error = record.error() != null ? record.error() : validate(record.row());
+            if (error != null) {
+                progress.fail(record.number(), error);
+            } else {
+                candidates.add(new Candidate(record.number(), record.row()));
+            }
+        }
+
+        candidates = rejectDuplicates(candidates, progress);
+        if (candidates.isEmpty()) {
+            return;
+        }
+
+        List<Patient> patients = toPatients(candidates);
+        try {
+            transactionTemplate.executeWithoutResult(status -> patientRepository.saveAll(patients));
+            progress.imported += patients.size();
+        } catch (DataIntegrityViolationException e) {
+            // Someone registered one of these meanwhile; find out which rows, one by one
+            for (int i = 0; i < patients.size(); i++) {
+                String error = saveOne(patients.get(i));
+                if (error == null) {
+                    progress.imported++;
+                } else {
+                    progress.fail(candidates.get(i).number(), error);
+                }
+            }
+        }
+    }
+
+    /**
+     * Inserts one patient, drawing a new patient id if the drawn one was taken
+     * since it was checked. Returns the row's error, or {@code null} once saved.
+     */
+    private String saveOne(Patient patient) {
+        for (int attempt = 1; ; attempt++) {
+            patient.setId(null);
+            try {
+                transactionTemplate.executeWithoutResult(status -> patientRepository.save(patient));
+                return null;
+            } catch (DataIntegrityViolationException e) {
+                String column = violatedColumn(e);
+                if (!"patient_id".equals(column)) {
+                    return switch (column != null ? column : "") {
+                        case "email" -> "Email already registered";
+                        case "phone_number" -> "Phone number already registered";
+                        default -> "Conflicts with an existing patient";
+                    };
+                }
+                if (attempt == MAX_PATIENT_ID_ATTEMPTS) {
+                    return "Could not allocate a unique patient id";
+                }
+                patient.setPatientId(newPatientIds(1).get(0));
+            }
+        }
+    }
+
+    /**
+     * The column named in Postgres' unique violation detail, {@code Key (column)=(value)
+     * already exists}, or {@code null} when the cause carries no such detail.
+     */
+    private static String violatedColumn(DataIntegrityViolationException e) {
+        String message = e.getMostSpecificCause().getMessage();
+        Matcher matcher = VIOLATED_KEY.matcher(message != null ? message : "");
+        return matcher.find() ? matcher.group(1) : null;
+    }
+
+    private String validate(PatientImportRow row) {
+        Set<ConstraintViolation<PatientImportRow>> violations = validator.validate(row);
+        if (!violations.isEmpty()) {
+            ConstraintViolation<PatientImportRow> violation = violations.iterator().next();
+            return violation.getPropertyPath() + ": " + violation.getMessage();
+        }
+        if (row.getPassword() == null && row.getPasswordHash() == null) {
+            return "password or passwordHash is required";
+        }
+        try {
+            Patient.Gender.valueOf(row.getGender().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return "gender: must be one of MALE, FEMALE, OTHER";
+        }
+        return null;
+    }
+
+    /**
+     * Drops rows whose email or phone number appeared earlier in the import or
+     * is already registered, using one {@code IN} query per field for the chunk.
+     */
+    private List<Candidate> rejectDuplicates(List<Candidate> candidates, Progress progress) {
+        List<Candidate> unique = new ArrayList<>(candidates.size());
+        for (Candidate candidate : candidates) {
+            PatientImportRow row = candidate.row();
+            if (progress.emails.contains(row.getEmail())) {
+                progress.fail(candidate.number(), "Duplicate email in import");
+            } else if (progress.phoneNumbers.contains(row.getPhoneNumber())) {
+                progress.fail(candidate.number(), "Duplicate phone number in import");
+            } else {
+                progress.emails.add(row.getEmail());
+                progress.phoneNumbers.add(row.getPhoneNumber());
+                unique.add(candidate);
+            }
+        }
+        if (unique.isEmpty()) {
+            return unique;
+        }
+
+        Set<String> existingEmails = patientRepository.findExistingEmails(
+                unique.stream().map(candidate -> candidate.row().getEmail()).toList());
+        Set<String> existingPhones = patientRepository.findExistingPhoneNumbers(
+                unique.stream().map(candidate -> candidate.row().getPhoneNumber()).toList());
+
+        List<Candidate> accepted = new ArrayList<>(unique.size());
+        for (Candidate candidate : unique) {
+            if (existingEmails.contains(candidate.row().getEmail())) {
+                progress.fail(candidate.number(), "Email already registered");
+            } else if (existingPhones.contains(candidate.row().getPhoneNumber())) {
+                progress.fail(candidate.number(), "Phone number already registered");
+            } else {
+                accepted.add(candidate);
+            }
+        }
+        return accepted;
+    }
+
+    private List<Patient> toPatients(List<Candidate> candidates) {
+        List<String> rawPasswords = candidates.stream()
+                .map(Candidate::row)
+                .filter(row -> row.getPasswordHash() == null)
+                .map(PatientImportRow::getPassword)
+                .toList();
+        List<String> hashed = passwordHashingService.hashAll(rawPasswords);
+        List<String> patientIds = newPatientIds(candidates.size());
+
+        List<Patient> patients = new ArrayList<>(candidates.size());
+        int nextHash = 0;
+        for (int i = 0; i < candidates.size(); i++) {
+            PatientImportRow row = candidates.get(i).row();
+            Patient patient = Patient.builder()
+                    .patientId(patientIds.get(i))
+                    .firstName(row.getFirstName())
+                    .lastName(row.getLastName())
+                    .dateOfBirth(row.getDateOfBirth())
+                    .gender(Patient.Gender.valueOf(row.getGender().toUpperCase()))
+                    .phoneNumber(row.getPhoneNumber())
+                    .email(row.getEmail())
+                    .password(row.getPasswordHash() != null ? row.getPasswordHash() : hashed.get(nextHash++))
+                    .bloodGroup(row.getBloodGroup())
+                    .medicalHistory(row.getMedicalHistory())
+                    .allergies(row.getAllergies())
+                    .status(Patient.PatientStatus.ACTIVE)
+                    .build();
+            if (row.getAddress() != null) {
+                patient.setAddress(new Address(
+                        row.getAddress().getStreet(),
+                        row.getAddress().getCity(),
+                        row.getAddress().getState(),
+                        row.getAddress().getZipCode(),
+                        row.getAddress().getCountry()
+                ));
+            }
+            patients.add(patient);
+        }
+        return patients;
+    }
+
+    /**
+     * Patient ids in the registration format. At registry scale the short random
+     * part does collide, so collisions within the chunk or with existing patients
+     * are redrawn.
+     */
+    private List<String> newPatientIds(int count) {
+        Set<String> ids = new HashSet<>(count * 2);
+        while (ids.size() < count) {
+            Set<String> drawn = new HashSet<>();
+            while (ids.size() + drawn.size() < count) {
+                String id = "PT" + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
+                if (!ids.contains(id)) {
+                    drawn.add(id);
+                }
+            }
+            drawn.removeAll(patientRepository.findExistingPatientIds(drawn));
+            ids.addAll(drawn);
+        }
+        return new ArrayList<>(ids);
+    }
+
+    private record Candidate(long number, PatientImportRow row) {
+    }
+
+    private final class Progress {
+        private final Set<String> emails = new HashSet<>();
+        private final Set<String> phoneNumbers = new HashSet<>();
+        private final List<ImportReport.RowError> errors = new ArrayList<>();
+        private long total;
+        private long imported;
+        private long failedCount;
+
+        void fail(long row, String message) {
+            failedCount++;
+            if (errors.size() < maxReportedErrors) {
+                errors.add(new ImportReport.RowError(row, message));
+            }
+        }
+
+        long failed() {
+            return failedCount;
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.example.patient_service.service;
+
+import com.example.patient_service.dto.PatientResponse;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.util.UriUtils;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Two-tier cache of patient profiles: a bounded in-process Caffeine cache in
+ * front of a Redis cache shared by all replicas, in front of Postgres.
+ *
+ * <p>When a profile update commits, the Redis copy is deleted and the patient id
+ * is published on {@link #CHANNEL}; every replica, this one included, drops its
+ * in-process copy on receipt. The gateway is told to purge its cached copy
+ * too. Both tiers also expire on their own, which bounds how long a copy read
+ * just before a concurrent update can survive. Redis being unavailable only
+ * costs the L2 hit, never the lookup.
+ */
+@Service
+@Slf4j
+public class PatientProfileCache implements MessageListener {
+
+    public static final String CHANNEL = "patient-profile-invalidations";
+    // The API gateway's response cache listens here for paths to purge
+    private static final String GATEWAY_CHANNEL = "gateway-cache-invalidations";
+    private static final String KEY_PREFIX = "patient:profile:";
+
+    private final Cache<String, PatientResponse> local;
+    private final StringRedisTemplate redisTemplate;
+    private final JsonMapper jsonMapper;
+    private final Duration sharedTtl;
+    private final Counter sharedHits;
+    private final Counter sharedMisses;
+
+    public PatientProfileCache(StringRedisTemplate redisTemplate, JsonMapper jsonMapper, MeterRegistry meterRegistry,
+                               @Value("${patient.cache.local.max-size:10000}") long localMaxSize,
+                               @Value("${patient.cache.local.ttl-seconds:60}") long localTtlSeconds,
+                               @Value("${patient.cache.shared.ttl-seconds:600}") long sharedTtlSeconds) {
+        this.redisTemplate = redisTemplate;
+        this.jsonMapper = jsonMapper;
+        this.sharedTtl = Duration.ofSeconds(sharedTtlSeconds);
+        this.local = CaffeineCacheMetrics.monitor(meterRegistry, Caffeine.newBuilder()
+                .maximumSize(localMaxSize)
+                .expireAfterWrite(Duration.ofSeconds(localTtlSeconds))
+                .recordStats()
+                .<String, PatientResponse>build(), "patient.profile.local");
+        this.sharedHits = Counter.builder("patient.profile.shared.requests")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.sharedMisses = Counter.builder("patient.profile.shared.requests")
+                .tag("result", "miss")
+                .register(meterRegistry);
+    }
+
+    public PatientResponse get(String patientId, Supplier<PatientResponse> loader) {
+        return local.get(patientId, id -> {
+            PatientResponse shared = readShared(id);
+            if (shared != null) {
+                sharedHits.increment();
+                return shared;
+            }
+            sharedMisses.increment();
+
+            PatientResponse loaded = loader.get();
+            writeShared(id, loaded);
+            return loaded;
+        });
+    }
+
+    /**
+     * Bulk variant of {@link #get}: one in-process lookup, one Redis MGET for what
+     * is not held locally, and a single {@code loader} call for the rest. Ids the
+     * loader does not return are absent from the result and are not cached.
+     */
+    public Map<String, PatientResponse> getAll(Collection<String> patientIds,
+                                               Function<Set<String>, Map<String, PatientResponse>> loader) {
+        return local.getAll(patientIds, missing -> {
+            List<String> ids = List.copyOf(missing);
+            Map<String, PatientResponse> found = new HashMap<>(readShared(ids));
+            sharedHits.increment(found.size());
+            sharedMisses.increment(ids.size() - found.size());
+
+            Set<String> unresolved = new LinkedHashSet<>(ids);
+            unresolved.removeAll(found.keySet());
+            if (!unresolved.isEmpty()) {
+                Map<String, PatientResponse> loaded = loader.apply(unresolved);
+                writeShared(loaded);
+                found.putAll(loaded);
+            }
+            return found;
+        });
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onPatientUpdated(PatientUpdatedEvent event) {
+        local.invalidate(event.patientId());
+        try {
+            redisTemplate.delete(KEY_PREFIX + event.patientId());
+            redisTemplate.convertAndSend(CHANNEL, event.patientId());
+            redisTemplate.convertAndSend(GATEWAY_CHANNEL, "/api/patients/"
+                    + UriUtils.encodePathSegment(event.patientId(), StandardCharsets.UTF_8));
+        } catch (RuntimeException e) {
+            log.warn("Could not invalidate shared profile of patient: {}", event.patientId(), e);
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        local.invalidate(new String(message.getBody(), StandardCharsets.UTF_8));
+    }
+
+    private PatientResponse readShared(String patientId) {
+        try {
+            String json = redisTemplate.opsForValue().get(KEY_PREFIX + patientId);
+            return json != null ? jsonMapper.readValue(json, PatientResponse.class) : null;
+        } catch (RuntimeException e) {
+            log.debug("Shared profile cache unavailable for patient: {}", patientId, e);
+            return null;
+        }
+    }
+
+    private Map<String, PatientResponse> readShared(List<String> patientIds) {
+        Map<String, PatientResponse> found = new HashMap<>();
+        try {
+            List<String> values = redisTemplate.opsForValue()
+                    .multiGet(patientIds.stream().map(id -> KEY_PREFIX + id).toList());
+            for (int i = 0; values != null && i < values.size(); i++) {
+                if (values.get(i) != null) {
+                    found.put(patientIds.get(i), jsonMapper.readValue(values.get(i), PatientResponse.class));
+                }
+            }
+        } catch (RuntimeException e) {
+            log.debug("Shared profile cache unavailable for {} patients", patientIds.size(), e);
+        }
+        return found;
+    }
+
+    private void writeShared(Map<String, PatientResponse> profiles) {
+        if (profiles.isEmpty()) {
+            return;
+        }
+        try {
+            Expiration expiration = Expiration.from(sharedTtl);
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                profiles.forEach((id, profile) -> connection.stringCommands().set(
+                        (KEY_PREFIX + id).getBytes(StandardCharsets.UTF_8),
+                        jsonMapper.writeValueAsString(profile).getBytes(StandardCharsets.UTF_8),
+                        expiration, RedisStringCommands.SetOption.upsert()));
+                return null;
+            });
+        } catch (RuntimeException e) {
+            log.debug("Could not cache profiles of {} patients", profiles.size(), e);
+        }
+    }
+
+    private void writeShared(String patientId, PatientResponse profile) {
+        try {
+            redisTemplate.opsForValue().set(KEY_PREFIX + patientId, jsonMapper.writeValueAsString(profile), sharedTtl);
+        } catch (RuntimeException e) {
+            log.debug("Could not cache profile of patient: {}", patientId, e);
+        }
+    }
+}
@@ -2,28 +2,63 @@ package com.example.patient_service.service;
 
 
 import com.example.patient_service.dto.AddressDTO;
+import com.example.patient_service.dto.PatientBatchResponse;
+import com.example.patient_service.dto.PatientClinicalView;
 import com.example.patient_service.dto.PatientRegistrationRequest;
 import com.example.patient_service.dto.PatientResponse;
+import com.example.patient_service.dto.PatientSearchResponse;
+import com.example.patient_service.dto.PatientSummary;
+import com.example.patient_service.exception.BatchTooLargeException;
+import com.example.patient_service.exception.InvalidSearchException;
 import com.example.patient_service.exception.PatientAlreadyExistsException;
 import com.example.patient_service.exception.PatientNotFoundException;
 import com.example.patient_service.model.Address;
 import com.example.patient_service.model.Patient;
 import com.example.patient_service.repository.PatientRepository;
 import lombok.RequiredArgsConstructor;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class PatientService {
 
     private final PatientRepository patientRepository;
-        private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashingService;
+    private final TransactionTemplate transactionTemplate;
+    private final PatientProfileCache profileCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ReplicaLagGuard replicaLagGuard;
 
-    @Transactional
+    private static final int SEARCH_MIN_LENGTH = 3;
+
+    @Value("${patient.batch.max-ids:500}")
+    private int batchMaxIds;
+
+    @Value("${patient.search.default-page-size:20}")
+    private int searchDefaultPageSize;
+
+    @Value("${patient.search.max-page-size:50}")
+    private int searchMaxPageSize;
+
+    /**
+     * Duplicate checks and the insert each run in their own short transaction.
+     * The password is hashed in between, on the hashing pool, so no connection
+     * is held while BCrypt runs. A registration racing this one past the checks
+     * is caught by the unique constraints.
+     */
     public PatientResponse registerPatient(PatientRegistrationRequest request) {
         if (patientRepository.existsByEmail(request.getEmail())) {
             throw new PatientAlreadyExistsException("Email already registered");
@@ -40,7 +75,7 @@ public class PatientService {
                 .gender(Patient.Gender.valueOf(request.getGender().toUpperCase()))
                 .phoneNumber(request.getPhoneNumber())
                 .email(request.getEmail())
-                .password(passwordEncoder.encode(request.getPassword()))
+                .password(passwordHashingService.hash(request.getPassword()))
                 .bloodGroup(request.getBloodGroup())
                 .medicalHistory(request.getMedicalHistory())
                 .allergies(request.getAllergies())
@@ -57,14 +92,98 @@ public class PatientService {
             ));
         }
 
-        Patient savedPatient = patientRepository.save(patient);
+        Patient savedPatient;
+        try {
+            savedPatient = transactionTemplate.execute(status -> {
+                Patient saved = patientRepository.save(patient);
+                // Keeps the first reads of the new patient off lagging replicas
+                eventPublisher.publishEvent(new PatientUpdatedEvent(saved.getPatientId()));
+                return saved;
+            });
+        } catch (DataIntegrityViolationException e) {
+            throw new PatientAlreadyExistsException("Email or phone number already registered");
+        }
         return mapToResponse(savedPatient);
     }
 
+    /**
+     * Cache misses read the summary projection in a read-only transaction, served
+     * by a replica unless the patient was written moments ago; the entity, with
+     * its password hash and clinical notes, is never loaded.
+     */
     public PatientResponse getPatientById(String patientId) {
-        Patient patient = patientRepository.findByPatientId(patientId)
+        return profileCache.get(patientId, () -> replicaLagGuard.read(patientId,
+                        () -> patientRepository.findSummaryByPatientId(patientId))
+                .map(this::mapToResponse)
+                .orElseThrow(() -> new PatientNotFoundException("Patient not found: " + patientId)));
+    }
+
+    /**
+     * Medical history, allergies and blood group, for clinicians. Not cached, so
+     * clinical notes only ever live in Postgres.
+     */
+    public PatientClinicalView getClinicalView(String patientId) {
+        return replicaLagGuard.read(patientId, () -> patientRepository.findClinicalViewByPatientId(patientId))
                 .orElseThrow(() -> new PatientNotFoundException("Patient not found: " + patientId));
-        return mapToResponse(patient);
+    }
+
+    /**
+     * Profiles of many patients in one call, for day lists and queue boards.
+     * Cache misses are resolved with a single IN query; results keep the order of
+     * the request and ids that match no patient are reported rather than failing
+     * the batch.
+     */
+    public PatientBatchResponse getPatientsByIds(List<String> patientIds) {
+        Set<String> ids = new LinkedHashSet<>(patientIds);
+        if (ids.size() > batchMaxIds) {
+            throw new BatchTooLargeException("At most " + batchMaxIds + " patient IDs per batch");
+        }
+
+        Map<String, PatientResponse> profiles = profileCache.getAll(ids, missing ->
+                replicaLagGuard.read(missing, () -> patientRepository.findSummariesByPatientIdIn(missing)).stream()
+                        .collect(Collectors.toMap(PatientSummary::patientId, this::mapToResponse)));
+
+        List<PatientResponse> patients = new ArrayList<>(profiles.size());
+        List<String> missingIds = new ArrayList<>();
+        for (String id : ids) {
+            PatientResponse profile = profiles.get(id);
+            if (profile != null) {
+                patients.add(profile);
+            } else {
+                missingIds.add(id);
+            }
+        }
+        return PatientBatchResponse.builder()
+                .patients(patients)
+                .missingIds(missingIds)
+                .build();
+    }
+
+    /**
+     * Reception search by name fragment, phone prefix and/or email prefix. Pages
+     * are keyed on the last patient id seen rather than an offset, so deep pages
+     * cost the same as the first.
+     */
+    @Transactional(readOnly = true)
+    public PatientSearchResponse searchPatients(String name, String phonePrefix, String emailPrefix,
+                                                Long after, Integer limit) {
+        String nameTerm = searchTerm(name);
+        String phoneTerm = searchTerm(phonePrefix);
+        String emailTerm = searchTerm(emailPrefix);
+        if (nameTerm == null && phoneTerm == null && emailTerm == null) {
+            throw new InvalidSearchException("Provide a name, phone or email to search by");
+        }
+
+        int pageSize = limit == null || limit <= 0 ? searchDefaultPageSize : Math.min(limit, searchMaxPageSize);
+        List<PatientSummary> page = patientRepository.search(nameTerm, phoneTerm, emailTerm,
+                after != null ? after : 0L, pageSize + 1);
+
+        boolean more = page.size() > pageSize;
+        List<PatientSummary> patients = more ? page.subList(0, pageSize) : page;
+        return PatientSearchResponse.builder()
+                .patients(patients.stream().map(this::mapToResponse).toList())
+                .nextCursor(more ? patients.get(patients.size() - 1).id() : null)
+                .build();
     }
 
     @Transactional
@@ -79,9 +198,49 @@ public class PatientService {
         patient.setAllergies(request.getAllergies());
 
         Patient updatedPatient = patientRepository.save(patient);
+        eventPublisher.publishEvent(new PatientUpdatedEvent(patientId));
         return mapToResponse(updatedPatient);
     }
 
+    /**
+     * Lower-cased, whitespace-collapsed search input, or null when absent. Terms
+     * shorter than three characters are refused: they yield no trigrams, which
+     * would turn the search into a full scan.
+     */
+    private String searchTerm(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        String term = value.trim().replaceAll("\\s+", " ").toLowerCase();
+        if (term.length() < SEARCH_MIN_LENGTH) {
+            throw new InvalidSearchException("Search terms need at least " + SEARCH_MIN_LENGTH + " characters");
+        }
+        return term;
+    }
+
+    private PatientResponse mapToResponse(PatientSummary summary) {
+        AddressDTO addressDTO = null;
+        if (summary.street() != null || summary.city() != null || summary.state() != null
+                || summary.zipCode() != null || summary.country() != null) {
+            addressDTO = new AddressDTO(summary.street(), summary.city(), summary.state(),
+                    summary.zipCode(), summary.country());
+        }
+
+        return PatientResponse.builder()
+                .id(summary.id())
+                .patientId(summary.patientId())
+                .firstName(summary.firstName())
+                .lastName(summary.lastName())
+                .dateOfBirth(summary.dateOfBirth())
+                .gender(summary.gender().name())
+                .phoneNumber(summary.phoneNumber())
+                .email(summary.email())
+                .address(addressDTO)
+                .bloodGroup(summary.bloodGroup())
+                .status(summary.status().name())
+                .build();
+    }
+
     private PatientResponse mapToResponse(Patient patient) {
         AddressDTO addressDTO = null;
         if (patient.getAddress() != null) {
@@ -0,0 +1,8 @@
+package com.example.patient_service.service;
+
+/**
+ * Raised inside the transaction that changes a patient's profile; cached copies
+ * are dropped once that transaction commits.
+ */
+public record PatientUpdatedEvent(String patientId) {
+}
@@ -0,0 +1,56 @@
+package com.example.patient_service.service;
+
+import com.example.patient_service.config.ReplicaRoutingDataSource;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.function.Supplier;
+
+/**
+ * Keeps reads of a just-written patient on the primary while replicas catch up.
+ * Without it, the cache miss that follows an update could read the old row from
+ * a lagging replica and cache it for the full TTL.
+ *
+ * <p>Patients are pinned locally when their write commits and on every other
+ * replica of this service through the profile invalidation channel, which
+ * already carries each updated patient id.
+ */
+@Service
+public class ReplicaLagGuard implements MessageListener {
+
+    private final Cache<String, Boolean> recentlyWritten;
+
+    public ReplicaLagGuard(@Value("${patient.datasource.pin-to-primary-ms:5000}") long pinMs) {
+        this.recentlyWritten = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMillis(pinMs))
+                .build();
+    }
+
+    public <T> T read(String patientId, Supplier<T> query) {
+        return recentlyWritten.getIfPresent(patientId) != null ? ReplicaRoutingDataSource.onPrimary(query) : query.get();
+    }
+
+    public <T> T read(Collection<String> patientIds, Supplier<T> query) {
+        boolean pinned = patientIds.stream().anyMatch(id -> recentlyWritten.getIfPresent(id) != null);
+        return pinned ? ReplicaRoutingDataSource.onPrimary(query) : query.get();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onPatientUpdated(PatientUpdatedEvent event) {
+        recentlyWritten.put(event.patientId(), Boolean.TRUE);
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        recentlyWritten.put(new String(message.getBody(), StandardCharsets.UTF_8), Boolean.TRUE);
+    }
+}
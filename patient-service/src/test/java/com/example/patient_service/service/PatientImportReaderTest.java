@@ -0,0 +1,100 @@
+package com.example.patient_service.service;
+
+import org.junit.jupiter.api.Test;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PatientImportReaderTest {
+
+    private static final String HEADER = "firstName,lastName,dateOfBirth,city,medicalHistory\n";
+
+    @Test
+    void readsQuotedFieldsWithCommasAndEscapedQuotes() throws IOException {
+        List<PatientImportReader.Record> records = readCsv(HEADER
+                + "\"Anna, Maria\",\"O\"\"Brien\",1990-04-12,\"Dublin\",\"\"\n");
+
+        assertThat(records).hasSize(1);
+        PatientImportReader.Record record = records.get(0);
+        assertThat(record.error()).isNull();
+        assertThat(record.row().getFirstName()).isEqualTo("Anna, Maria");
+        assertThat(record.row().getLastName()).isEqualTo("O\"Brien");
+        assertThat(record.row().getDateOfBirth()).isEqualTo(LocalDate.of(1990, 4, 12));
+        assertThat(record.row().getAddress().getCity()).isEqualTo("Dublin");
+        assertThat(record.row().getMedicalHistory()).isNull();
+    }
+
+    @Test
+    void readsRecordsWhoseQuotedFieldsSpanLines() throws IOException {
+        List<PatientImportReader.Record> records = readCsv(HEADER
+                + "Ana,Lima,1985-01-02,Porto,\"Asthma\nHypertension, since 2019\"\n"
+                + "Ben,Okafor,1979-11-30,Lagos,\"\"\"None\"\"\"\n");
+
+        assertThat(records).extracting(PatientImportReader.Record::number).containsExactly(1L, 2L);
+        assertThat(records.get(0).row().getMedicalHistory()).isEqualTo("Asthma\nHypertension, since 2019");
+        assertThat(records.get(1).row().getFirstName()).isEqualTo("Ben");
+        assertThat(records.get(1).row().getMedicalHistory()).isEqualTo("\"None\"");
+    }
+
+    @Test
+    void reportsBadRecordsWithoutEndingTheImport() throws IOException {
+        List<PatientImportReader.Record> records = readCsv("\uFEFF" + HEADER
+                + "Ana,Lima,1985-01-02\n"
+                + "\n"
+                + "Ben,Okafor,30/11/1979,Lagos,\n"
+                + "Cleo,Marsh,1992-07-08,Leeds,\n");
+
+        assertThat(records).hasSize(3);
+        assertThat(records.get(0).error()).isEqualTo("Expected 5 columns but found 3");
+        assertThat(records.get(1).error()).isEqualTo("Invalid dateOfBirth: 30/11/1979");
+        assertThat(records.get(2).error()).isNull();
+        assertThat(records.get(2).number()).isEqualTo(3);
+        assertThat(records.get(2).row().getFirstName()).isEqualTo("Cleo");
+    }
+
+    @Test
+    void unterminatedQuoteEndsTheLastRecordAtEndOfInput() throws IOException {
+        List<PatientImportReader.Record> records = readCsv(HEADER
+                + "Ana,Lima,1985-01-02,Porto,\"Asthma\nstill open");
+
+        assertThat(records).hasSize(1);
+        assertThat(records.get(0).row().getMedicalHistory()).isEqualTo("Asthma\nstill open");
+    }
+
+    @Test
+    void readsNdjsonAndFlagsMalformedLines() throws IOException {
+        String input = "{\"firstName\":\"Ana\",\"lastName\":\"Lima\",\"dateOfBirth\":\"1985-01-02\"}\n"
+                + "\n"
+                + "{\"firstName\":\n";
+
+        List<PatientImportReader.Record> records = read(input, PatientImportReader.Format.NDJSON);
+
+        assertThat(records).hasSize(2);
+        assertThat(records.get(0).row().getDateOfBirth()).isEqualTo(LocalDate.of(1985, 1, 2));
+        assertThat(records.get(1).row()).isNull();
+        assertThat(records.get(1).error()).startsWith("Malformed JSON");
+    }
+
+    private static List<PatientImportReader.Record> readCsv(String input) throws IOException {
+        return read(input, PatientImportReader.Format.CSV);
+    }
+
+    private static List<PatientImportReader.Record> read(String input, PatientImportReader.Format format)
+            throws IOException {
+        List<PatientImportReader.Record> records = new ArrayList<>();
+        try (PatientImportReader reader = new PatientImportReader(
+                new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), format, JsonMapper.builder().build())) {
+            while (reader.hasNext()) {
+                records.add(reader.next());
+            }
+        }
+        return records;
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.queue_service.benchmark;
+
+import com.example.queue_service.QueueServiceApplication;
+import com.example.queue_service.config.RedisCommandCounter;
+import com.example.queue_service.dto.BatchTokenResponse;
+import com.example.queue_service.dto.TokenGenerationRequest;
+import com.example.queue_service.dto.TokenResponse;
+import com.example.queue_service.service.QueueService;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Boots queue-service against a private embedded Redis for one benchmark fork,
+ * without the web server, Eureka or background jobs, and counts the Redis
+ * commands an operation sends through the application's command listener.
+ */
+final class QueueBenchmarkSupport implements AutoCloseable {
+
+    static final String DOCTOR_ID = "bench-doctor";
+    static final String DEPARTMENT_ID = "bench-department";
+
+    private final RedisServer redisServer;
+    private final ConfigurableApplicationContext context;
+    private final QueueService queueService;
+    private final StringRedisTemplate redisTemplate;
+    private final RedisCommandCounter commandCounter;
+    private final AtomicLong patientSequence = new AtomicLong();
+
+    private QueueBenchmarkSupport(RedisServer redisServer, ConfigurableApplicationContext context) {
+        this.redisServer = redisServer;
+        this.context = context;
+        this.queueService = context.getBean(QueueService.class);
+        this.redisTemplate = context.getBean(StringRedisTemplate.class);
+        this.commandCounter = context.getBean(RedisCommandCounter.class);
+    }
+
+    static QueueBenchmarkSupport start() throws IOException {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        RedisServer redisServer = new RedisServer(port);
+        redisServer.start();
+
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(QueueServiceApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.data.redis.port=" + port,
+                        "eureka.client.enabled=false",
+                        "spring.cloud.discovery.enabled=false",
+                        "queue.status.reconcile-ms=86400000",
+                        "queue.metrics.depth-refresh-ms=86400000",
+                        "queue.archive.cron=-",
+                        "queue.archive.dir=target/jmh-archive",
+                        "logging.level.com.example.queue_service=WARN")
+                .run();
+        return new QueueBenchmarkSupport(redisServer, context);
+    }
+
+    QueueService queueService() {
+        return queueService;
+    }
+
+    LocalDate today() {
+        return LocalDate.now();
+    }
+
+    void flush() {
+        redisTemplate.execute((RedisCallback<Object>) connection -> {
+            connection.serverCommands().flushAll();
+            return null;
+        });
+    }
+
+    /**
+     * Fills the doctor's queue with {@code depth} waiting tokens in one bulk call
+     * and returns them in queue order.
+     */
+    List<TokenResponse> seedQueue(int depth) {
+        List<TokenGenerationRequest> requests = new ArrayList<>(depth);
+        for (int i = 0; i < depth; i++) {
+            requests.add(request(nextPatientId(), DOCTOR_ID));
+        }
+        return queueService.generateTokens(requests).getResults().stream()
+                .map(BatchTokenResponse.ItemResult::getToken)
+                .toList();
+    }
+
+    /**
+     * Gives one patient a history of {@code size} tokens, one per doctor, so the
+     * history page has real entries to resolve.
+     */
+    String seedHistory(int size) {
+        String patientId = nextPatientId();
+        List<TokenGenerationRequest> requests = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            requests.add(request(patientId, "history-doctor-" + i));
+        }
+        queueService.generateTokens(requests);
+        return patientId;
+    }
+
+    TokenResponse issue() {
+        return queueService.generateToken(request(nextPatientId(), DOCTOR_ID));
+    }
+
+    TokenGenerationRequest request(String patientId, String doctorId) {
+        return TokenGenerationRequest.builder()
+                .patientId(patientId)
+                .doctorId(doctorId)
+                .departmentId(DEPARTMENT_ID)
+                .date(today())
+                .priority("NORMAL")
+                .build();
+    }
+
+    String nextPatientId() {
+        return "bench-patient-" + patientSequence.incrementAndGet();
+    }
+
+    /**
+     * Runs {@code operation} and returns the Redis commands it sent, read from the
+     * calling thread's {@link RedisCommandCounter}. Background work on other
+     * threads is never counted; a pipelined command or script call counts once.
+     */
+    long countCommands(Runnable operation) {
+        long before = commandCounter.current();
+        operation.run();
+        return commandCounter.current() - before;
+    }
+
+    @Override
+    public void close() throws IOException {
+        context.close();
+        redisServer.stop();
+    }
+}
@@ -0,0 +1,243 @@
+package com.example.queue_service.benchmark;
+
+import com.example.queue_service.dto.QueueStatusResponse;
+import com.example.queue_service.dto.TokenHistoryResponse;
+import com.example.queue_service.dto.TokenResponse;
+import com.example.queue_service.service.QueueService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the {@link QueueService} hot paths at different queue depths.
+ *
+ * <p>Mutating operations run {@value #BATCH} times per invocation, reported per
+ * operation through {@link OperationsPerInvocation}. Their fixtures (tokens to
+ * call or complete) are staged, and their effects undone, once per invocation
+ * outside the measured call, so those Redis round trips are spread over a whole
+ * batch instead of timed around every microsecond-scale call. Within an
+ * invocation the queue depth moves by at most {@value #BATCH}; between
+ * invocations it is restored.
+ *
+ * <p>Run with {@code ./mvnw -P benchmark verify}. Allocation rates come from
+ * {@code -prof gc}; Redis commands per operation are sampled once per trial
+ * through the application's {@code RedisCommandCounter}, which only sees the
+ * benchmark thread, and printed with the results and to
+ * {@code target/jmh-redis-commands.csv}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class QueueServiceBenchmark {
+
+    static final int BATCH = 50;
+    private static final int HISTORY_SIZE = 20;
+    private static final int PROBE_SAMPLES = 20;
+    private static final Path COMMANDS_REPORT = Path.of("target", "jmh-redis-commands.csv");
+
+    @State(Scope.Benchmark)
+    public static class QueueState {
+
+        @Param({"10", "100", "1000"})
+        public int depth;
+
+        QueueBenchmarkSupport support;
+        QueueService queueService;
+        LocalDate date;
+        String probeTokenId;
+        String historyPatientId;
+
+        @Setup(Level.Trial)
+        public void start() throws IOException {
+            support = QueueBenchmarkSupport.start();
+            queueService = support.queueService();
+        }
+
+        @Setup(Level.Iteration)
+        public void seed() {
+            support.flush();
+            date = support.today();
+            List<TokenResponse> queue = support.seedQueue(depth);
+            probeTokenId = queue.get(queue.size() / 2).getTokenId();
+            historyPatientId = support.seedHistory(HISTORY_SIZE);
+        }
+
+        @TearDown(Level.Trial)
+        public void stop(BenchmarkParams params) throws IOException {
+            try {
+                reportCommands(params);
+            } finally {
+                support.close();
+            }
+        }
+
+        private void reportCommands(BenchmarkParams params) throws IOException {
+            String benchmark = params.getBenchmark();
+            String operation = benchmark.substring(benchmark.lastIndexOf('.') + 1);
+
+            seed();
+            long commands = 0;
+            for (int i = 0; i < PROBE_SAMPLES; i++) {
+                commands += probe(operation);
+            }
+            double perOp = commands / (double) PROBE_SAMPLES;
+
+            System.out.printf("%n# Redis commands/op %s depth=%d: %.2f%n", operation, depth, perOp);
+
+            Files.createDirectories(COMMANDS_REPORT.getParent());
+            if (Files.notExists(COMMANDS_REPORT)) {
+                Files.writeString(COMMANDS_REPORT, "benchmark,depth,commandsPerOp\n");
+            }
+            Files.writeString(COMMANDS_REPORT, String.format("%s,%d,%.2f%n", operation, depth, perOp),
+                    StandardOpenOption.APPEND);
+        }
+
+        /**
+         * Runs one operation with command counting. Its fixture is prepared and
+         * undone outside the count, as in the measured benchmark.
+         */
+        private long probe(String operation) {
+            switch (operation) {
+                case "generateToken": {
+                    IssueState issue = new IssueState();
+                    long commands = support.countCommands(() -> issue.issued.add(support.issue().getTokenId()));
+                    issue.restore(this);
+                    return commands;
+                }
+                case "callNextToken": {
+                    support.issue();
+                    return support.countCommands(
+                            () -> queueService.callNextToken(QueueBenchmarkSupport.DOCTOR_ID, date));
+                }
+                case "completeToken": {
+                    TokenResponse called = queueService.callNextToken(QueueBenchmarkSupport.DOCTOR_ID, date);
+                    queueService.startConsultation(called.getTokenId());
+                    support.issue();
+                    return support.countCommands(() -> queueService.completeToken(called.getTokenId()));
+                }
+                case "getTokenStatus":
+                    return support.countCommands(() -> queueService.getTokenStatus(probeTokenId));
+                case "getQueueStatus":
+                    return support.countCommands(
+                            () -> queueService.getQueueStatus(QueueBenchmarkSupport.DOCTOR_ID, date));
+                case "getPatientTokens":
+                    return support.countCommands(
+                            () -> queueService.getPatientTokens(historyPatientId, null, HISTORY_SIZE));
+                default:
+                    throw new IllegalArgumentException("No command probe for " + operation);
+            }
+        }
+    }
+
+    /**
+     * Cancels the batch of freshly issued tokens so the queue does not grow.
+     */
+    @State(Scope.Thread)
+    public static class IssueState {
+
+        final List<String> issued = new ArrayList<>(BATCH);
+
+        @TearDown(Level.Invocation)
+        public void restore(QueueState queue) {
+            issued.forEach(queue.queueService::cancelToken);
+            issued.clear();
+        }
+    }
+
+    /**
+     * Adds a batch of tokens to call in one bulk request, so the queue is back at
+     * its depth once the batch has been called.
+     */
+    @State(Scope.Thread)
+    public static class CallState {
+
+        @Setup(Level.Invocation)
+        public void stage(QueueState queue) {
+            queue.support.seedQueue(BATCH);
+        }
+    }
+
+    /**
+     * Tops the queue up with one bulk request, then puts that many tokens into
+     * consultation, leaving the queue at its depth.
+     */
+    @State(Scope.Thread)
+    public static class CompleteState {
+
+        final List<String> tokenIds = new ArrayList<>(BATCH);
+
+        @Setup(Level.Invocation)
+        public void prepare(QueueState queue) {
+            queue.support.seedQueue(BATCH);
+            tokenIds.clear();
+            for (int i = 0; i < BATCH; i++) {
+                TokenResponse called = queue.queueService.callNextToken(QueueBenchmarkSupport.DOCTOR_ID, queue.date);
+                queue.queueService.startConsultation(called.getTokenId());
+                tokenIds.add(called.getTokenId());
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void generateToken(QueueState queue, IssueState issue) {
+        for (int i = 0; i < BATCH; i++) {
+            issue.issued.add(queue.support.issue().getTokenId());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void callNextToken(QueueState queue, CallState call, Blackhole blackhole) {
+        for (int i = 0; i < BATCH; i++) {
+            blackhole.consume(queue.queueService.callNextToken(QueueBenchmarkSupport.DOCTOR_ID, queue.date));
+        }
+    }
+
+    @Benchmark
+    public TokenResponse getTokenStatus(QueueState queue) {
+        return queue.queueService.getTokenStatus(queue.probeTokenId);
+    }
+
+    @Benchmark
+    public QueueStatusResponse getQueueStatus(QueueState queue) {
+        return queue.queueService.getQueueStatus(QueueBenchmarkSupport.DOCTOR_ID, queue.date);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void completeToken(QueueState queue, CompleteState complete) {
+        for (String tokenId : complete.tokenIds) {
+            queue.queueService.completeToken(tokenId);
+        }
+    }
+
+    @Benchmark
+    public TokenHistoryResponse getPatientTokens(QueueState queue) {
+        return queue.queueService.getPatientTokens(queue.historyPatientId, null, HISTORY_SIZE);
+    }
+}
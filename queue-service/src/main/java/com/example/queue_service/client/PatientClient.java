@@ -0,0 +1,25 @@
+package com.example.queue_service.client;
+
+import com.example.queue_service.dto.PatientBatchRequest;
+import com.example.queue_service.dto.PatientBatchResponse;
+import com.example.queue_service.dto.PatientProfile;
+import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+
+/**
+ * patient-service, resolved through Eureka. Prefer {@link #getPatients} whenever
+ * more than one patient is needed, e.g. to label a queue board, instead of one
+ * {@link #getPatient} call per token.
+ */
+@FeignClient(name = "patient-service", path = "/api/patients")
+public interface PatientClient {
+
+    @GetMapping("/{patientId}")
+    PatientProfile getPatient(@PathVariable("patientId") String patientId);
+
+    @PostMapping("/batch")
+    PatientBatchResponse getPatients(@RequestBody PatientBatchRequest request);
+}
@@ -0,0 +1,31 @@
+package com.example.queue_service.config;
+
+import io.lettuce.core.AbstractRedisClient;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+
+@Configuration
+public class QueueMetricsConfig {
+
+    /**
+     * Attaches the command counter to the Lettuce client as soon as the connection
+     * factory is initialised, before any connection is opened: Lettuce only wires
+     * listeners into connections created after registration.
+     */
+    @Bean
+    public static BeanPostProcessor redisCommandCounterRegistrar(ObjectProvider<RedisCommandCounter> counter) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof LettuceConnectionFactory factory
+                        && factory.getNativeClient() instanceof AbstractRedisClient client) {
+                    client.addListener(counter.getObject());
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.queue_service.config;
+
+import com.example.queue_service.service.QueueEventPublisher;
+import com.example.queue_service.service.QueueStreamService;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+@Configuration
+public class QueueStreamConfig {
+
+    @Bean
+    public RedisMessageListenerContainer queueEventListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                     QueueStreamService queueStreamService) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(queueStreamService, new ChannelTopic(QueueEventPublisher.CHANNEL));
+        return container;
+    }
+}
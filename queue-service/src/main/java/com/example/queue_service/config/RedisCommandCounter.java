@@ -0,0 +1,36 @@
+package com.example.queue_service.config;
+
+import io.lettuce.core.event.command.CommandFailedEvent;
+import io.lettuce.core.event.command.CommandListener;
+import io.lettuce.core.event.command.CommandStartedEvent;
+import io.lettuce.core.event.command.CommandSucceededEvent;
+import org.springframework.stereotype.Component;
+
+/**
+ * Counts Redis commands per calling thread. Lettuce reports a command as started
+ * on the thread that dispatches it, so the difference between two
+ * {@link #current()} readings is what one request sent, pipelined and scripted
+ * calls included (a script counts once).
+ */
+@Component
+public class RedisCommandCounter implements CommandListener {
+
+    private static final ThreadLocal<long[]> COUNT = ThreadLocal.withInitial(() -> new long[1]);
+
+    @Override
+    public void commandStarted(CommandStartedEvent event) {
+        COUNT.get()[0]++;
+    }
+
+    @Override
+    public void commandSucceeded(CommandSucceededEvent event) {
+    }
+
+    @Override
+    public void commandFailed(CommandFailedEvent event) {
+    }
+
+    public long current() {
+        return COUNT.get()[0];
+    }
+}
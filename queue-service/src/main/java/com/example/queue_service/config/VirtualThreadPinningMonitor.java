@@ -0,0 +1,122 @@
+package com.example.queue_service.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Watches for virtual threads pinned to their carrier in virtual-thread mode,
+ * using the JDK's own {@code jdk.VirtualThreadPinned} JFR event. A pinned
+ * virtual thread blocks its carrier for the whole wait, so a library that pins
+ * on I/O quietly brings back the thread-pool ceiling.
+ *
+ * <p>Every pinning longer than the threshold is timed in
+ * {@code virtual.threads.pinned}, tagged with the library it happened in
+ * (Hibernate, Lettuce, the JDBC driver, ...). The first time each call site pins,
+ * its stack is logged.
+ */
+@Component
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+@Slf4j
+public class VirtualThreadPinningMonitor {
+
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final int LOGGED_FRAMES = 15;
+
+    // Package prefix -> library tag, matched against the innermost frames first
+    private static final Map<String, String> LIBRARIES = Map.of(
+            "org.hibernate.", "hibernate",
+            "io.lettuce.", "lettuce",
+            "org.postgresql.", "postgresql",
+            "com.zaxxer.hikari.", "hikari",
+            "org.springframework.data.redis.", "spring-data-redis",
+            "org.springframework.orm.", "spring-orm",
+            "org.apache.catalina.", "tomcat",
+            "org.apache.tomcat.", "tomcat");
+
+    private final MeterRegistry meterRegistry;
+    private final Duration threshold;
+    private final Set<String> reportedSites = ConcurrentHashMap.newKeySet();
+    private RecordingStream stream;
+
+    public VirtualThreadPinningMonitor(MeterRegistry meterRegistry,
+                                       @Value("${queue.virtual-threads.pinning-threshold-ms:20}") long thresholdMs) {
+        this.meterRegistry = meterRegistry;
+        this.threshold = Duration.ofMillis(thresholdMs);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (Runtime.version().feature() < 21) {
+            log.warn("Virtual threads requested but JVM {} has none; still running on platform threads",
+                    Runtime.version());
+            return;
+        }
+        stream = new RecordingStream();
+        stream.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+        stream.onEvent(PINNED_EVENT, this::onPinned);
+        stream.startAsync();
+        log.info("Reporting virtual threads pinned for longer than {} ms", threshold.toMillis());
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (stream != null) {
+            stream.close();
+        }
+    }
+
+    private void onPinned(RecordedEvent event) {
+        List<RecordedFrame> frames = event.getStackTrace() != null ? event.getStackTrace().getFrames() : List.of();
+        String library = "other";
+        String site = frames.isEmpty() ? "unknown" : describe(frames.get(0));
+        for (RecordedFrame frame : frames) {
+            String match = library(frame.getMethod().getType().getName());
+            if (match != null) {
+                library = match;
+                site = describe(frame);
+                break;
+            }
+        }
+
+        Timer.builder("virtual.threads.pinned")
+                .description("Time virtual threads spent pinned to their carrier")
+                .tag("library", library)
+                .register(meterRegistry)
+                .record(event.getDuration());
+
+        if (reportedSites.add(site)) {
+            log.warn("Virtual thread pinned for {} ms in {} at {}:\n  {}", event.getDuration().toMillis(), library,
+                    site, frames.stream().limit(LOGGED_FRAMES).map(VirtualThreadPinningMonitor::describe)
+                            .collect(Collectors.joining("\n  ")));
+        }
+    }
+
+    private static String library(String className) {
+        return LIBRARIES.entrySet().stream()
+                .filter(entry -> className.startsWith(entry.getKey()))
+                .map(Map.Entry::getValue)
+                .findFirst()
+                .orElse(null);
+    }
+
+    private static String describe(RecordedFrame frame) {
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName()
+                + ":" + frame.getLineNumber();
+    }
+}
@@ -1,9 +1,15 @@
 package com.example.queue_service.controller;
 
+import com.example.queue_service.dto.BatchTokenResponse;
+import com.example.queue_service.dto.ConsultationEstimateResponse;
+import com.example.queue_service.dto.QueueStatsResponse;
 import com.example.queue_service.dto.QueueStatusResponse;
 import com.example.queue_service.dto.TokenGenerationRequest;
+import com.example.queue_service.dto.TokenHistoryResponse;
 import com.example.queue_service.dto.TokenResponse;
+import com.example.queue_service.model.QueueStats;
 import com.example.queue_service.service.QueueService;
+import com.example.queue_service.service.QueueStatsService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
@@ -17,12 +23,20 @@ import java.util.List;
 @RequiredArgsConstructor
 public class QueueController {
     private final QueueService queueService;
+    private final QueueStatsService queueStatsService;
 
     @PostMapping("/generate")
     public ResponseEntity<TokenResponse> generateQueue(@RequestBody TokenGenerationRequest request) {
         TokenResponse response= queueService.generateToken(request);
         return ResponseEntity.ok(response);
     }
+    @PostMapping("/generate/batch")
+    public ResponseEntity<BatchTokenResponse> generateQueueBatch(
+            @RequestBody List<TokenGenerationRequest> requests) {
+        BatchTokenResponse response = queueService.generateTokens(requests);
+        return ResponseEntity.ok(response);
+    }
+
     @GetMapping("/token/{tokenId}")
     public ResponseEntity<TokenResponse> getToken(@PathVariable String tokenId) {
         TokenResponse response = queueService.getTokenStatus(tokenId);
@@ -38,12 +52,40 @@ public class QueueController {
     }
 
     @GetMapping("/patient/{patientId}")
-    public ResponseEntity<List<TokenResponse>> getPatientTokens(
-            @PathVariable String patientId) {
-        List<TokenResponse> tokens = queueService.getPatientTokens(patientId);
+    public ResponseEntity<TokenHistoryResponse> getPatientTokens(
+            @PathVariable String patientId,
+            @RequestParam(required = false) String before,
+            @RequestParam(required = false) Integer limit) {
+        TokenHistoryResponse tokens = queueService.getPatientTokens(patientId, before, limit);
         return ResponseEntity.ok(tokens);
     }
 
+    @GetMapping("/estimator/{doctorId}")
+    public ResponseEntity<ConsultationEstimateResponse> getConsultationEstimate(
+            @PathVariable String doctorId,
+            @RequestParam(required = false) String departmentId) {
+        ConsultationEstimateResponse response = queueService.getConsultationEstimate(doctorId, departmentId);
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/stats/doctor/{doctorId}")
+    public ResponseEntity<QueueStatsResponse> getDoctorStats(
+            @PathVariable String doctorId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        QueueStatsResponse response = queueStatsService.getStats(QueueStats.Scope.DOCTOR, doctorId, from, to);
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/stats/department/{departmentId}")
+    public ResponseEntity<QueueStatsResponse> getDepartmentStats(
+            @PathVariable String departmentId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        QueueStatsResponse response = queueStatsService.getStats(QueueStats.Scope.DEPARTMENT, departmentId, from, to);
+        return ResponseEntity.ok(response);
+    }
+
     @PostMapping("/call-next")
     public ResponseEntity<TokenResponse> callNextToken(
             @RequestParam String doctorId,
@@ -63,4 +105,10 @@ public class QueueController {
         queueService.completeToken(tokenId);
         return ResponseEntity.ok().build();
     }
+
+    @PutMapping("/token/{tokenId}/cancel")
+    public ResponseEntity<Void> cancelToken(@PathVariable String tokenId) {
+        queueService.cancelToken(tokenId);
+        return ResponseEntity.ok().build();
+    }
 }
@@ -0,0 +1,29 @@
+package com.example.queue_service.controller;
+
+import com.example.queue_service.service.QueueStreamService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.LocalDate;
+
+@RestController
+@RequestMapping("/API/QUEUE/stream")
+@RequiredArgsConstructor
+public class QueueStreamController {
+    private final QueueStreamService queueStreamService;
+
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamQueue(
+            @RequestParam String doctorId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        return queueStreamService.subscribeQueue(doctorId, date);
+    }
+
+    @GetMapping(value = "/token/{tokenId}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamToken(@PathVariable String tokenId) {
+        return queueStreamService.subscribeToken(tokenId);
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.queue_service.controller;
+
+import com.example.queue_service.dto.QueueStatusResponse;
+import com.example.queue_service.dto.TokenHistoryResponse;
+import com.example.queue_service.dto.TokenResponse;
+import com.example.queue_service.service.ReactiveQueueService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+
+@RestController
+@RequestMapping("/API/QUEUE/rx")
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "queue.reactive.enabled", havingValue = "true")
+public class ReactiveQueueController {
+    private final ReactiveQueueService reactiveQueueService;
+
+    @GetMapping("/token/{tokenId}")
+    public Mono<TokenResponse> getToken(@PathVariable String tokenId) {
+        return reactiveQueueService.getTokenStatus(tokenId);
+    }
+
+    @GetMapping("/status")
+    public Mono<QueueStatusResponse> getQueueStatus(
+            @RequestParam String doctorId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        return reactiveQueueService.getQueueStatus(doctorId, date);
+    }
+
+    @GetMapping("/patient/{patientId}")
+    public Mono<TokenHistoryResponse> getPatientTokens(
+            @PathVariable String patientId,
+            @RequestParam(required = false) String before,
+            @RequestParam(required = false) Integer limit) {
+        return reactiveQueueService.getPatientTokens(patientId, before, limit);
+    }
+}
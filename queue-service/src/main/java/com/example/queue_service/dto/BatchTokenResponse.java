@@ -0,0 +1,27 @@
+package com.example.queue_service.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class BatchTokenResponse {
+    private Integer requested;
+    private Integer issued;
+    private Integer failed;
+    private List<ItemResult> results;
+
+    @Data
+    @Builder
+    public static class ItemResult {
+        private Integer index;
+        private String patientId;
+        private String doctorId;
+        private String outcome;
+        private TokenResponse token;
+        private String existingTokenId;
+        private String error;
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.queue_service.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class ConsultationEstimateResponse {
+    private String doctorId;
+    private String departmentId;
+    private String source;
+    private Long samples;
+    private Double averageMinutes;
+    private Double p50Minutes;
+    private Double p90Minutes;
+}
@@ -0,0 +1,17 @@
+package com.example.queue_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PatientBatchResponse {
+    private List<PatientProfile> patients;
+    private List<String> missingIds;
+}
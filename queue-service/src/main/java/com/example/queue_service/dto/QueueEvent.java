@@ -0,0 +1,34 @@
+package com.example.queue_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class QueueEvent {
+    private EventType type;
+    private String doctorId;
+    private LocalDate date;
+    private String tokenId;
+    private Integer tokenNumber;
+    private String status;
+    private Long queueVersion;
+    private Integer position;
+    private LocalDateTime occurredAt;
+
+    public enum EventType {
+        TOKEN_ISSUED,
+        TOKEN_CALLED,
+        CONSULTATION_STARTED,
+        TOKEN_COMPLETED,
+        TOKEN_CANCELED,
+        POSITION_CHANGED
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.queue_service.dto;
+
+import com.example.queue_service.model.QueueStats;
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@Builder
+public class QueueStatsResponse {
+    private String scope;
+    private String id;
+    private LocalDate from;
+    private LocalDate to;
+    private Integer totalTokens;
+    private Integer completedTokens;
+    private Integer canceledTokens;
+    private Double averageWaitMinutes;
+    private List<QueueStats> days;
+}
@@ -14,4 +14,5 @@ public class QueueStatusResponse {
     private Integer totalWaiting;
     private Integer averageWaitMinutes;
     private Integer lastServedToken;
+    private Long queueVersion;
 }
@@ -0,0 +1,15 @@
+package com.example.queue_service.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class TokenHistoryResponse {
+    private String patientId;
+    private List<TokenResponse> tokens;
+    // Pass back as 'before' for the next page; null on the last page
+    private String nextCursor;
+}
@@ -0,0 +1,11 @@
+package com.example.queue_service.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidHistoryCursorException extends RuntimeException {
+    public InvalidHistoryCursorException(String message) {
+        super(message);
+    }
+}
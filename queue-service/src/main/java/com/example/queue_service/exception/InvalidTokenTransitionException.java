@@ -0,0 +1,11 @@
+package com.example.queue_service.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.CONFLICT)
+public class InvalidTokenTransitionException extends RuntimeException {
+    public InvalidTokenTransitionException(String message) {
+        super(message);
+    }
+}
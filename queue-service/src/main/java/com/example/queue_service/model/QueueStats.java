@@ -1,17 +1,43 @@
 package com.example.queue_service.model;
 
-import lombok.Data;
-import lombok.Builder;
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.redis.core.RedisHash;
 import java.time.LocalDate;
 
+/**
+ * Daily rollup for one doctor or department, kept up to date by
+ * {@code scripts/stats-record.lua} on every token transition. The id is
+ * {@code {scope}:{doctorId|departmentId}:{date}}.
+ */
 @Data
+@AllArgsConstructor
+@NoArgsConstructor
 @Builder
+@RedisHash("QueueStats")
 public class QueueStats {
-    private String doctorName;
+    @Id
+    private String id;
+    private Scope scope;
+    private String doctorId;
+    private String departmentId;
     private LocalDate date;
     private Integer totalTokens;
     private Integer waitingTokens;
     private Integer completedTokens;
-    private Integer averageTokens;
+    private Integer canceledTokens;
+    private Double totalWaitMinutes;
+    private Integer calledTokens;
+    private Double averageWaitMinutes;
+    // Only meaningful for the doctor scope
     private Integer currentTokenNumber;
-}
\ No newline at end of file
+
+    public enum Scope {
+        DOCTOR,
+        DEPARTMENT;
+
+        public String key() {
+            return name().toLowerCase();
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.example.queue_service.model;
 
 import lombok.*;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Transient;
 import org.springframework.data.redis.core.RedisHash;
 import org.springframework.data.redis.core.index.Indexed;
 import java.time.LocalDate;
@@ -24,18 +25,25 @@ public class QueueToken {
 
     @Indexed
     private String departmentId;
-    private String tokenNumber;
+    private Integer tokenNumber;
 
     @Indexed
     private LocalDate date;
     private LocalDateTime issueTime;
-    private LocalDateTime estimatedTime;
     private LocalDateTime actualCallTime;
+    private LocalDateTime consultationStartTime;
 
     @Indexed
     private TokenStatus status;
+
+    // Derived from the queue rank on read, never persisted
+    @Transient
     private Integer position;
+    @Transient
     private Integer estimatedWaitMinutes;
+    @Transient
+    private LocalDateTime estimatedTime;
+
     private String appointmentId;
     private TokenPriority priority;
     public enum TokenStatus {
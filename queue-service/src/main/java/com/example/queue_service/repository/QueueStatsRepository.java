@@ -0,0 +1,9 @@
+package com.example.queue_service.repository;
+
+import com.example.queue_service.model.QueueStats;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface QueueStatsRepository extends CrudRepository<QueueStats, String> {
+}
@@ -0,0 +1,39 @@
+package com.example.queue_service.repository;
+
+import com.example.queue_service.model.QueueToken;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.convert.Bucket;
+import org.springframework.data.redis.core.convert.RedisConverter;
+import org.springframework.data.redis.core.convert.RedisData;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+/**
+ * Non-blocking reads of the {@code QueueToken} hashes written by
+ * {@link QueueTokenRepository}. Hashes are decoded with the repository's own
+ * converter, so both stacks always agree on the stored format.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ReactiveQueueTokenStore {
+
+    private static final String KEY_PREFIX = "QueueToken:";
+
+    private final ReactiveStringRedisTemplate redisTemplate;
+    private final RedisConverter redisConverter;
+
+    public Mono<QueueToken> findById(String tokenId) {
+        return redisTemplate.<String, String>opsForHash()
+                .entries(KEY_PREFIX + tokenId)
+                .collectMap(Map.Entry::getKey, Map.Entry::getValue)
+                .filter(hash -> !hash.isEmpty())
+                .map(hash -> {
+                    RedisData data = new RedisData(Bucket.newBucketFromStringMap(hash));
+                    data.setId(tokenId);
+                    return redisConverter.read(QueueToken.class, data);
+                });
+    }
+}
@@ -0,0 +1,268 @@
+package com.example.queue_service.repository;
+
+import com.example.queue_service.model.QueueToken;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Append-only archive of finished days: one gzip-compressed NDJSON file per day,
+ * one token per line. Each archival run appends a new gzip member. A run repeated
+ * after a crash only re-appends identical lines, and readers use the first copy
+ * of each token.
+ *
+ * <p>Next to each day file, an index file lists every token with the offset of
+ * its gzip member in the file and of its line within that member. A lookup
+ * decompresses only the members holding the requested tokens, up to their lines,
+ * and parses just those lines. Indexes are small and cached per day.
+ *
+ * <p>{@code queue.archive.dir} must be storage every replica can read, such as a
+ * shared volume, since history is served by whichever replica gets the request.
+ */
+@Repository
+public class TokenArchiveStore {
+
+    private final Path directory;
+    private final JsonMapper jsonMapper;
+    private final Cache<LocalDate, DayIndex> indexes;
+
+    public TokenArchiveStore(@Value("${queue.archive.dir:archive}") String directory,
+                             @Value("${queue.archive.index-cache-days:7}") long indexCacheDays,
+                             JsonMapper jsonMapper) {
+        this.directory = Path.of(directory);
+        this.jsonMapper = jsonMapper;
+        this.indexes = Caffeine.newBuilder()
+                .maximumSize(indexCacheDays)
+                .build();
+    }
+
+    public Writer openWriter(LocalDate date) {
+        try {
+            Files.createDirectories(directory);
+            FileOutputStream file = new FileOutputStream(file(date).toFile(), true);
+            long memberOffset = file.getChannel().position();
+            GZIPOutputStream gzip = new GZIPOutputStream(file, 64 * 1024);
+            return new Writer(date, file, gzip, memberOffset);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open archive for " + date, e);
+        }
+    }
+
+    /**
+     * Returns the requested tokens of one archived day, reading only the gzip
+     * members and lines the day's index points at.
+     */
+    public Map<String, QueueToken> find(LocalDate date, Set<String> tokenIds) {
+        Path file = file(date);
+        Map<String, QueueToken> found = new HashMap<>();
+        if (tokenIds.isEmpty() || !Files.exists(file)) {
+            return found;
+        }
+
+        DayIndex index = index(date);
+        if (index == null) {
+            return scan(file, date, tokenIds);
+        }
+
+        // member offset -> line offset -> token id, so each member is inflated once, front to back
+        Map<Long, TreeMap<Long, String>> byMember = new TreeMap<>();
+        for (String tokenId : tokenIds) {
+            Location location = index.locations().get(tokenId);
+            if (location != null) {
+                byMember.computeIfAbsent(location.memberOffset(), offset -> new TreeMap<>())
+                        .put(location.lineOffset(), tokenId);
+            }
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            for (Map.Entry<Long, TreeMap<Long, String>> member : byMember.entrySet()) {
+                channel.position(member.getKey());
+                try (InputStream in = new BufferedInputStream(new GZIPInputStream(
+                        new FilterInputStream(Channels.newInputStream(channel)) {
+                            @Override
+                            public void close() {
+                                // The channel stays open for the next member
+                            }
+                        }, 64 * 1024))) {
+                    long position = 0;
+                    for (Map.Entry<Long, String> line : member.getValue().entrySet()) {
+                        in.skipNBytes(line.getKey() - position);
+                        byte[] json = readLine(in);
+                        position = line.getKey() + json.length + 1;
+                        found.put(line.getValue(), jsonMapper.readValue(json, QueueToken.class));
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read archive for " + date, e);
+        }
+        return found;
+    }
+
+    /**
+     * The day's index, reloaded whenever the index file has grown since it was cached.
+     * Returns {@code null} for days archived before indexes were written.
+     */
+    private DayIndex index(LocalDate date) {
+        Path indexFile = indexFile(date);
+        try {
+            if (!Files.exists(indexFile)) {
+                return null;
+            }
+            long size = Files.size(indexFile);
+            DayIndex cached = indexes.getIfPresent(date);
+            if (cached != null && cached.size() == size) {
+                return cached;
+            }
+
+            Map<String, Location> locations = new HashMap<>();
+            for (String line : Files.readAllLines(indexFile, StandardCharsets.UTF_8)) {
+                String[] fields = line.split(" ");
+                if (fields.length == 3) {
+                    locations.putIfAbsent(fields[0],
+                            new Location(Long.parseLong(fields[1]), Long.parseLong(fields[2])));
+                }
+            }
+            DayIndex index = new DayIndex(size, locations);
+            indexes.put(date, index);
+            return index;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read archive index for " + date, e);
+        }
+    }
+
+    /**
+     * Streams a whole day file; only used for days archived without an index.
+     */
+    private Map<String, QueueToken> scan(Path file, LocalDate date, Set<String> tokenIds) {
+        Map<String, QueueToken> found = new HashMap<>();
+        Set<String> remaining = new HashSet<>(tokenIds);
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(file), 64 * 1024), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null && !remaining.isEmpty()) {
+                QueueToken token = jsonMapper.readValue(line, QueueToken.class);
+                if (remaining.remove(token.getId())) {
+                    found.put(token.getId(), token);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read archive for " + date, e);
+        }
+        return found;
+    }
+
+    private static byte[] readLine(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream(512);
+        int b;
+        while ((b = in.read()) != -1 && b != '\n') {
+            line.write(b);
+        }
+        return line.toByteArray();
+    }
+
+    private Path file(LocalDate date) {
+        return directory.resolve("queue-tokens-" + date + ".ndjson.gz");
+    }
+
+    private Path indexFile(LocalDate date) {
+        return directory.resolve("queue-tokens-" + date + ".idx");
+    }
+
+    private record Location(long memberOffset, long lineOffset) {
+    }
+
+    private record DayIndex(long size, Map<String, Location> locations) {
+    }
+
+    public final class Writer implements Closeable {
+
+        private final LocalDate date;
+        private final FileOutputStream file;
+        private final GZIPOutputStream gzip;
+        private final OutputStream out;
+        private final long memberOffset;
+        private final List<String> indexLines = new ArrayList<>();
+        private long lineOffset;
+
+        private Writer(LocalDate date, FileOutputStream file, GZIPOutputStream gzip, long memberOffset) {
+            this.date = date;
+            this.file = file;
+            this.gzip = gzip;
+            this.out = new BufferedOutputStream(gzip, 64 * 1024);
+            this.memberOffset = memberOffset;
+        }
+
+        public void write(Iterable<QueueToken> tokens) {
+            try {
+                for (QueueToken token : tokens) {
+                    byte[] json = jsonMapper.writeValueAsBytes(token);
+                    out.write(json);
+                    out.write('\n');
+                    indexLines.add(token.getId() + " " + memberOffset + " " + lineOffset);
+                    lineOffset += json.length + 1;
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not write archive", e);
+            }
+        }
+
+        /**
+         * Finishes the gzip member and forces it to disk, then appends its index
+         * entries, so tokens are only removed from Redis once both are durable.
+         */
+        @Override
+        public void close() throws IOException {
+            try {
+                out.flush();
+                gzip.finish();
+                file.getFD().sync();
+            } finally {
+                out.close();
+            }
+
+            try (FileOutputStream index = new FileOutputStream(indexFile(date).toFile(), true);
+                 BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(index, StandardCharsets.UTF_8))) {
+                for (String line : indexLines) {
+                    writer.write(line);
+                    writer.newLine();
+                }
+                writer.flush();
+                index.getFD().sync();
+            }
+        }
+    }
+}
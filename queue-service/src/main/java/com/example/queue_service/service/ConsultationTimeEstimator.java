@@ -0,0 +1,176 @@
+package com.example.queue_service.service;
+
+import com.example.queue_service.dto.ConsultationEstimateResponse;
+import com.example.queue_service.model.QueueToken;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Learns how long consultations take from real start and completion times.
+ * Each doctor and department has a Redis hash holding an EWMA of consultation
+ * minutes plus P-square sketches of the median and 90th percentile, updated
+ * atomically by one script per completed consultation. Memory per doctor is
+ * constant and no token history is ever scanned.
+ *
+ * <p>Wait estimates use the doctor's own figures once enough samples exist,
+ * then the department's, then {@code queue.estimator.default-minutes}.
+ */
+@Service
+@Slf4j
+public class ConsultationTimeEstimator {
+
+    private static final String KEY_PREFIX = "queue:consult:";
+    private static final RedisScript<Long> RECORD_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/estimator-record.lua"), Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final Cache<String, Stats> cache;
+
+    @Value("${queue.estimator.default-minutes:15}")
+    private double defaultMinutes;
+
+    @Value("${queue.estimator.alpha:0.2}")
+    private double alpha;
+
+    @Value("${queue.estimator.min-samples:10}")
+    private long minSamples;
+
+    @Value("${queue.estimator.max-minutes:240}")
+    private double maxMinutes;
+
+    public ConsultationTimeEstimator(StringRedisTemplate redisTemplate,
+                                     @Value("${queue.estimator.cache-ms:30000}") long cacheMs,
+                                     @Value("${queue.estimator.cache-max-size:10000}") long cacheMaxSize) {
+        this.redisTemplate = redisTemplate;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfterWrite(Duration.ofMillis(cacheMs))
+                .build();
+    }
+
+    public void record(QueueToken token, LocalDateTime completedAt) {
+        if (token.getConsultationStartTime() == null) {
+            return;
+        }
+
+        double minutes = Duration.between(token.getConsultationStartTime(), completedAt).toSeconds() / 60.0;
+        if (minutes <= 0 || minutes > maxMinutes) {
+            log.debug("Ignoring consultation of {} minutes for token: {}", minutes, token.getId());
+            return;
+        }
+
+        List<String> keys = new ArrayList<>();
+        keys.add(key("doctor", token.getDoctorId()));
+        if (token.getDepartmentId() != null) {
+            keys.add(key("department", token.getDepartmentId()));
+        }
+        redisTemplate.execute(RECORD_SCRIPT, keys, String.valueOf(minutes), String.valueOf(alpha));
+    }
+
+    /**
+     * Expected minutes per consultation, used for position-based wait estimates.
+     */
+    public double minutesPerConsultation(String doctorId, String departmentId) {
+        return estimate(doctorId, departmentId).getAverageMinutes();
+    }
+
+    public ConsultationEstimateResponse estimate(String doctorId, String departmentId) {
+        Stats doctor = load(key("doctor", doctorId));
+        if (doctor.samples() >= minSamples) {
+            return toResponse(doctorId, departmentId, "DOCTOR", doctor);
+        }
+
+        if (departmentId != null) {
+            Stats department = load(key("department", departmentId));
+            if (department.samples() >= minSamples) {
+                return toResponse(doctorId, departmentId, "DEPARTMENT", department);
+            }
+        }
+
+        return ConsultationEstimateResponse.builder()
+                .doctorId(doctorId)
+                .departmentId(departmentId)
+                .source("DEFAULT")
+                .samples(doctor.samples())
+                .averageMinutes(defaultMinutes)
+                .p50Minutes(defaultMinutes)
+                .p90Minutes(defaultMinutes)
+                .build();
+    }
+
+    private ConsultationEstimateResponse toResponse(String doctorId, String departmentId,
+                                                    String source, Stats stats) {
+        return ConsultationEstimateResponse.builder()
+                .doctorId(doctorId)
+                .departmentId(departmentId)
+                .source(source)
+                .samples(stats.samples())
+                .averageMinutes(stats.ewma())
+                .p50Minutes(stats.p50())
+                .p90Minutes(stats.p90())
+                .build();
+    }
+
+    /**
+     * Reads an estimator hash, caching it briefly so polling status reads do not
+     * add a Redis round trip each. The cache is bounded, so doctors and
+     * departments that stop being polled are evicted.
+     */
+    private Stats load(String key) {
+        return cache.get(key, this::read);
+    }
+
+    private Stats read(String key) {
+        Map<Object, Object> hash = redisTemplate.opsForHash().entries(key);
+        long samples = hash.containsKey("samples") ? Long.parseLong(hash.get("samples").toString()) : 0L;
+        return new Stats(samples,
+                number(hash, "ewma"),
+                quantile(hash, "p50", 0.5, samples),
+                quantile(hash, "p90", 0.9, samples));
+    }
+
+    /**
+     * Until five samples arrive the sketch only buffers raw values, so the
+     * quantile is read off the sorted buffer; afterwards the middle marker holds it.
+     */
+    private double quantile(Map<Object, Object> hash, String tag, double p, long samples) {
+        if (samples == 0) {
+            return defaultMinutes;
+        }
+        if (samples >= 5) {
+            return number(hash, tag + ".q3");
+        }
+
+        double[] buffered = new double[(int) samples];
+        for (int i = 0; i < samples; i++) {
+            buffered[i] = number(hash, tag + ".q" + (i + 1));
+        }
+        Arrays.sort(buffered);
+        return buffered[(int) Math.floor(p * (samples - 1))];
+    }
+
+    private double number(Map<Object, Object> hash, String field) {
+        Object value = hash.get(field);
+        return value != null ? Double.parseDouble(value.toString()) : defaultMinutes;
+    }
+
+    private static String key(String scope, String id) {
+        return KEY_PREFIX + scope + ":" + id;
+    }
+
+    private record Stats(long samples, double ewma, double p50, double p90) {
+    }
+}
@@ -0,0 +1,219 @@
+package com.example.queue_service.service;
+
+import com.example.queue_service.exception.InvalidHistoryCursorException;
+import com.example.queue_service.model.QueueToken;
+import com.example.queue_service.repository.QueueTokenRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Per-patient index of token ids in a Redis sorted set scored by issue time
+ * (epoch millis), so a patient's history is read newest-first without touching
+ * other patients' tokens. Pages are delimited by the issue time and token id of
+ * the last entry served, since batch issuance gives many tokens the same score.
+ * Tokens moved to the archive stay in the index with their archive day attached.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PatientTokenIndex {
+
+    private static final String KEY_PREFIX = "queue:patient:";
+    private static final String ARCHIVED_SEPARATOR = "|";
+    private static final String BACKFILLED_KEY = "queue:patient-index:backfilled";
+    private static final String TOKEN_ID_SET = "QueueToken";
+    private static final int BACKFILL_CHUNK_SIZE = 500;
+
+    private final StringRedisTemplate redisTemplate;
+    private final QueueTokenRepository tokenRepository;
+
+    public void add(QueueToken token) {
+        redisTemplate.opsForZSet().add(key(token.getPatientId()), token.getId(), score(token.getIssueTime()));
+    }
+
+    /**
+     * Returns up to {@code limit} entries that come after {@code before} (all
+     * entries when {@code null}) and were issued no earlier than {@code sinceMillis},
+     * newest first.
+     */
+    public List<Entry> page(String patientId, long sinceMillis, Cursor before, int limit) {
+        String key = key(patientId);
+
+        long maxMillis = before != null ? before.issuedAtMillis() : Long.MAX_VALUE;
+        Long tied = before != null ? redisTemplate.opsForZSet().count(key, maxMillis, maxMillis) : null;
+        Set<ZSetOperations.TypedTuple<String>> tuples = redisTemplate.opsForZSet()
+                .reverseRangeByScoreWithScores(key, sinceMillis, maxMillis, 0, limit + (tied != null ? tied : 0));
+
+        List<Entry> entries = new ArrayList<>();
+        if (tuples != null) {
+            for (ZSetOperations.TypedTuple<String> tuple : tuples) {
+                entries.add(Entry.of(tuple.getValue(), tuple.getScore().longValue()));
+            }
+        }
+        return after(entries, before, limit);
+    }
+
+    /**
+     * Drops the entries of a newest-first range read from {@code before}'s score
+     * that sit at or ahead of the cursor, and keeps at most {@code limit}. Entries
+     * sharing a score are ordered by member, which for fixed-length token ids is
+     * the token id order, so a page boundary inside a run of tokens issued in the
+     * same millisecond neither skips nor repeats any of them.
+     */
+    static List<Entry> after(List<Entry> entries, Cursor before, int limit) {
+        return entries.stream()
+                .filter(entry -> before == null || entry.issuedAtMillis() < before.issuedAtMillis()
+                        || entry.tokenId().compareTo(before.tokenId()) < 0)
+                .limit(limit)
+                .toList();
+    }
+
+    /**
+     * Cursor for the page after {@code entries}, or {@code null} when it was the last one.
+     */
+    static String nextCursor(List<Entry> entries, int limit) {
+        if (entries.size() < limit) {
+            return null;
+        }
+        Entry last = entries.get(entries.size() - 1);
+        return new Cursor(last.issuedAtMillis(), last.tokenId()).toString();
+    }
+
+    /**
+     * Repoints entries of archived tokens at their archive day, as
+     * {@code tokenId|date} members with the same score, in one pipelined round trip.
+     * Entries issued before {@code trimBeforeMillis} are dropped, since history reads
+     * never reach past the window.
+     */
+    public void markArchived(List<QueueToken> tokens, long trimBeforeMillis) {
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection strings = (StringRedisConnection) connection;
+            for (QueueToken token : tokens) {
+                String key = key(token.getPatientId());
+                strings.zRem(key, token.getId());
+                strings.zAdd(key, score(token.getIssueTime()),
+                        token.getId() + ARCHIVED_SEPARATOR + token.getDate());
+                strings.zRemRangeByScore(key, 0, trimBeforeMillis - 1);
+            }
+            return null;
+        });
+    }
+
+    static String key(String patientId) {
+        return KEY_PREFIX + patientId;
+    }
+
+    static long score(LocalDateTime issueTime) {
+        return issueTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    /**
+     * Indexes tokens issued before the per-patient index existed, once per
+     * deployment rather than on the read path. Runs at startup and is tracked by a
+     * marker key, so later starts skip it; replicas starting together only repeat
+     * the same idempotent ZADDs.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        if (Boolean.TRUE.equals(redisTemplate.hasKey(BACKFILLED_KEY))) {
+            return;
+        }
+
+        int indexed = 0;
+        List<String> chunk = new ArrayList<>(BACKFILL_CHUNK_SIZE);
+        try (Cursor<String> ids = redisTemplate.opsForSet()
+                .scan(TOKEN_ID_SET, ScanOptions.scanOptions().count(BACKFILL_CHUNK_SIZE).build())) {
+            while (ids.hasNext()) {
+                chunk.add(ids.next());
+                if (chunk.size() == BACKFILL_CHUNK_SIZE) {
+                    indexed += backfill(chunk);
+                    chunk.clear();
+                }
+            }
+        }
+        if (!chunk.isEmpty()) {
+            indexed += backfill(chunk);
+        }
+
+        redisTemplate.opsForValue().set(BACKFILLED_KEY, "1");
+        log.info("Backfilled patient history index with {} tokens", indexed);
+    }
+
+    private int backfill(List<String> tokenIds) {
+        List<QueueToken> tokens = new ArrayList<>(tokenIds.size());
+        tokenRepository.findAllById(tokenIds).forEach(token -> {
+            if (token.getPatientId() != null && token.getIssueTime() != null) {
+                tokens.add(token);
+            }
+        });
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection strings = (StringRedisConnection) connection;
+            for (QueueToken token : tokens) {
+                strings.zAdd(key(token.getPatientId()), score(token.getIssueTime()), token.getId());
+            }
+            return null;
+        });
+        return tokens.size();
+    }
+
+    /**
+     * Position of the last entry served, as {@code <issue time millis>:<token id>}.
+     */
+    public record Cursor(long issuedAtMillis, String tokenId) {
+
+        public static Cursor parse(String value) {
+            if (value == null || value.isBlank()) {
+                return null;
+            }
+            int separator = value.indexOf(':');
+            try {
+                if (separator > 0 && separator < value.length() - 1) {
+                    return new Cursor(Long.parseLong(value.substring(0, separator)), value.substring(separator + 1));
+                }
+            } catch (NumberFormatException e) {
+                // Reported below
+            }
+            throw new InvalidHistoryCursorException("Invalid history cursor: " + value);
+        }
+
+        @Override
+        public String toString() {
+            return issuedAtMillis + ":" + tokenId;
+        }
+    }
+
+    /**
+     * One history entry; {@code archivedDate} is set once the token has moved to the archive.
+     */
+    public record Entry(String tokenId, long issuedAtMillis, LocalDate archivedDate) {
+
+        static Entry of(String member, long issuedAtMillis) {
+            int separator = member.indexOf(ARCHIVED_SEPARATOR);
+            if (separator < 0) {
+                return new Entry(member, issuedAtMillis, null);
+            }
+            return new Entry(member.substring(0, separator), issuedAtMillis,
+                    LocalDate.parse(member.substring(separator + 1)));
+        }
+
+        public boolean archived() {
+            return archivedDate != null;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.queue_service.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.MultiGauge;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Publishes today's waiting-queue depth as a gauge, summed per doctor bucket (the
+ * same {@code doctor_bucket} tag as the operation timers) so the series count stays
+ * bounded. Per-doctor depth is served by the status endpoint. Depths are read from
+ * the queue state hashes in one pipelined round trip per refresh rather than on
+ * every scrape.
+ */
+@Service
+public class QueueDepthMetrics {
+
+    private final TokenQueueService tokenQueueService;
+    private final MultiGauge waitingDepth;
+    private final int doctorBuckets;
+
+    public QueueDepthMetrics(TokenQueueService tokenQueueService, MeterRegistry meterRegistry,
+                             @Value("${queue.metrics.doctor-buckets:16}") int doctorBuckets) {
+        this.tokenQueueService = tokenQueueService;
+        this.doctorBuckets = doctorBuckets;
+        this.waitingDepth = MultiGauge.builder("queue.waiting.depth")
+                .description("Tokens waiting in today's queue")
+                .baseUnit("tokens")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${queue.metrics.depth-refresh-ms:15000}")
+    public void refresh() {
+        LocalDate today = LocalDate.now();
+        Map<String, Long> depths = tokenQueueService.waitingCounts(today, tokenQueueService.activeDoctors(today));
+
+        long[] bucketDepths = new long[doctorBuckets];
+        depths.forEach((doctorId, depth) ->
+                bucketDepths[QueueOperationMetrics.doctorBucket(doctorId, doctorBuckets)] += depth);
+
+        // Every bucket is reported, empty ones as 0, so the set of series never changes
+        List<MultiGauge.Row<?>> rows = new ArrayList<>(doctorBuckets);
+        for (int bucket = 0; bucket < doctorBuckets; bucket++) {
+            rows.add(MultiGauge.Row.of(Tags.of("doctor_bucket", String.valueOf(bucket)), bucketDepths[bucket]));
+        }
+        waitingDepth.register(rows, true);
+    }
+}
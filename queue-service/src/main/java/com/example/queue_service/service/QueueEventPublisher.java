@@ -0,0 +1,67 @@
+package com.example.queue_service.service;
+
+import com.example.queue_service.dto.QueueEvent;
+import com.example.queue_service.model.QueueToken;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.web.util.UriComponentsBuilder;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.time.LocalDateTime;
+
+/**
+ * Publishes queue state transitions on a Redis channel so every queue-service
+ * replica can fan them out to its own stream subscribers, and tells the API
+ * gateway which of its cached responses they made stale.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class QueueEventPublisher {
+
+    public static final String CHANNEL = "queue-events";
+    // The API gateway's response cache listens here for paths to purge
+    private static final String GATEWAY_CHANNEL = "gateway-cache-invalidations";
+
+    private final StringRedisTemplate redisTemplate;
+    private final JsonMapper jsonMapper;
+
+    public void publish(QueueEvent.EventType type, QueueToken token, long queueVersion) {
+        QueueEvent event = QueueEvent.builder()
+                .type(type)
+                .doctorId(token.getDoctorId())
+                .date(token.getDate())
+                .tokenId(token.getId())
+                .tokenNumber(token.getTokenNumber())
+                .status(token.getStatus().name())
+                .queueVersion(queueVersion)
+                .occurredAt(LocalDateTime.now())
+                .build();
+
+        try {
+            redisTemplate.convertAndSend(CHANNEL, jsonMapper.writeValueAsString(event));
+            purgeGatewayCache(token);
+        } catch (RuntimeException e) {
+            // Streams are best effort; a lost event must never fail the transition itself
+            log.warn("Could not publish {} for token: {}", type, token.getId(), e);
+        }
+    }
+
+    /**
+     * Drops the gateway's cached queue status and token response, so polling
+     * displays see the transition now rather than when their cached copy expires.
+     */
+    private void purgeGatewayCache(QueueToken token) {
+        redisTemplate.convertAndSend(GATEWAY_CHANNEL, UriComponentsBuilder.fromPath("/api/queue/status")
+                .queryParam("doctorId", token.getDoctorId())
+                .queryParam("date", token.getDate())
+                .encode()
+                .toUriString());
+        redisTemplate.convertAndSend(GATEWAY_CHANNEL, UriComponentsBuilder.fromPath("/api/queue/token/{tokenId}")
+                .buildAndExpand(token.getId())
+                .encode()
+                .toUriString());
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.queue_service.service;
+
+import com.example.queue_service.config.RedisCommandCounter;
+import com.example.queue_service.dto.QueueStatusResponse;
+import com.example.queue_service.dto.TokenGenerationRequest;
+import com.example.queue_service.dto.TokenResponse;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Times every public {@link QueueService} operation and counts the Redis commands
+ * it sent. Doctors are folded into a fixed number of hash buckets so the tag
+ * cardinality stays bounded however many doctors there are; operations that
+ * only name a token report the doctor of their result where there is one.
+ */
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class QueueOperationMetrics {
+
+    private static final String NO_DOCTOR = "none";
+
+    private final MeterRegistry meterRegistry;
+    private final RedisCommandCounter redisCommandCounter;
+
+    @Value("${queue.metrics.doctor-buckets:16}")
+    private int doctorBuckets;
+
+    @Around("execution(public * com.example.queue_service.service.QueueService.*(..))")
+    public Object measure(ProceedingJoinPoint joinPoint) throws Throwable {
+        String operation = joinPoint.getSignature().getName();
+        String doctorId = doctorArgument(joinPoint);
+        long commandsBefore = redisCommandCounter.current();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "success";
+        Object result = null;
+
+        try {
+            result = joinPoint.proceed();
+            return result;
+        } catch (Throwable e) {
+            outcome = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            if (doctorId == null) {
+                doctorId = doctorOf(result);
+            }
+            String bucket = bucket(doctorId);
+
+            sample.stop(Timer.builder("queue.operation")
+                    .description("Latency of queue-service operations")
+                    .tag("operation", operation)
+                    .tag("doctor_bucket", bucket)
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+
+            DistributionSummary.builder("queue.operation.redis.commands")
+                    .description("Redis commands sent per queue-service operation")
+                    .tag("operation", operation)
+                    .register(meterRegistry)
+                    .record(redisCommandCounter.current() - commandsBefore);
+        }
+    }
+
+    private String doctorArgument(ProceedingJoinPoint joinPoint) {
+        String[] names = ((MethodSignature) joinPoint.getSignature()).getParameterNames();
+        Object[] args = joinPoint.getArgs();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i] instanceof TokenGenerationRequest request) {
+                return request.getDoctorId();
+            }
+            if (names != null && "doctorId".equals(names[i]) && args[i] instanceof String doctorId) {
+                return doctorId;
+            }
+        }
+        return null;
+    }
+
+    private static String doctorOf(Object result) {
+        if (result instanceof TokenResponse token) {
+            return token.getDoctorId();
+        }
+        if (result instanceof QueueStatusResponse status) {
+            return status.getDoctorId();
+        }
+        return null;
+    }
+
+    private String bucket(String doctorId) {
+        return doctorId != null ? String.valueOf(doctorBucket(doctorId, doctorBuckets)) : NO_DOCTOR;
+    }
+
+    /**
+     * The {@code doctor_bucket} tag value of a doctor, shared with {@link QueueDepthMetrics}.
+     */
+    static int doctorBucket(String doctorId, int buckets) {
+        return Math.floorMod(doctorId.hashCode(), buckets);
+    }
+}
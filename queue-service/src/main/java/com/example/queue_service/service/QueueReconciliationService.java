@@ -0,0 +1,91 @@
+package com.example.queue_service.service;
+
+import com.example.queue_service.model.QueueToken;
+import com.example.queue_service.repository.QueueTokenRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Repairs drift between the per-queue waiting set and counters in Redis and the
+ * tokens themselves, e.g. after a failed transition or a partial Redis flush.
+ * The waiting set is repaired first and the waiting counter derived from it, since
+ * every queue script recomputes the counter from the set.
+ *
+ * <p>A token popped by a call but not yet marked CALLED can be re-added; the
+ * call path skips members whose CALLED transition fails, so it is never called
+ * twice.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class QueueReconciliationService {
+
+    private final QueueTokenRepository tokenRepository;
+    private final TokenQueueService tokenQueueService;
+
+    @Scheduled(fixedDelayString = "${queue.status.reconcile-ms:300000}")
+    public void reconcileToday() {
+        LocalDate today = LocalDate.now();
+        for (String doctorId : tokenQueueService.activeDoctors(today)) {
+            try {
+                reconcile(doctorId, today);
+            } catch (RuntimeException e) {
+                log.warn("Could not reconcile queue for doctor: {} on {}", doctorId, today, e);
+            }
+        }
+    }
+
+    public void reconcile(String doctorId, LocalDate date) {
+        long version = tokenQueueService.version(doctorId, date);
+        List<QueueToken> tokens = tokenRepository.findByDoctorIdAndDateOrderByTokenNumberAsc(doctorId, date);
+        if (tokens.isEmpty()) {
+            return;
+        }
+
+        Set<String> queued = tokenQueueService.waitingMembers(doctorId, date);
+        Set<String> waiting = tokens.stream()
+                .filter(t -> t.getStatus() == QueueToken.TokenStatus.WAITING)
+                .map(QueueToken::getId)
+                .collect(Collectors.toSet());
+        List<QueueToken> missing = tokens.stream()
+                .filter(t -> waiting.contains(t.getId()) && !queued.contains(t.getId()))
+                .toList();
+        List<String> stale = queued.stream()
+                .filter(id -> !waiting.contains(id))
+                .toList();
+        int current = tokens.stream()
+                .filter(t -> t.getStatus() == QueueToken.TokenStatus.IN_PROGRESS)
+                .map(QueueToken::getTokenNumber)
+                .findFirst()
+                .orElse(0);
+        int lastServed = tokens.stream()
+                .filter(t -> t.getStatus() == QueueToken.TokenStatus.COMPLETED)
+                .map(QueueToken::getTokenNumber)
+                .max(Integer::compareTo)
+                .orElse(0);
+
+        Map<Object, Object> state = tokenQueueService.state(doctorId, date);
+        if (missing.isEmpty() && stale.isEmpty() && matches(state, "waiting", queued.size())
+                && matches(state, "current", current) && matches(state, "lastServed", lastServed)) {
+            return;
+        }
+
+        if (tokenQueueService.reconcile(doctorId, date, version, missing, stale, current, lastServed)) {
+            log.warn("Reconciled queue for doctor: {} on {} (was {}, {} missing, {} stale)",
+                    doctorId, date, state, missing.size(), stale.size());
+        }
+    }
+
+    private boolean matches(Map<Object, Object> state, String field, int expected) {
+        Object value = state.get(field);
+        return Integer.parseInt(value != null ? value.toString() : "0") == expected;
+    }
+}
@@ -1,15 +1,20 @@
 package com.example.queue_service.service;
 
 import com.example.queue_service.dto.*;
+import com.example.queue_service.exception.BatchTooLargeException;
+import com.example.queue_service.exception.InvalidTokenTransitionException;
 import com.example.queue_service.exception.TokenAlreadyExistsException;
 import com.example.queue_service.model.QueueToken;
 import com.example.queue_service.repository.QueueTokenRepository;
+import com.example.queue_service.repository.TokenArchiveStore;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -19,121 +24,224 @@ import java.util.stream.Collectors;
 public class QueueService {
 
     private final QueueTokenRepository tokenRepository;
-    private static final int AVERAGE_CONSULTATION_MINUTES = 15;
+    private final TokenIssuer tokenIssuer;
+    private final TokenQueueService tokenQueueService;
+    private final PatientTokenIndex patientTokenIndex;
+    private final QueueEventPublisher eventPublisher;
+    private final QueueReconciliationService reconciliationService;
+    private final ConsultationTimeEstimator consultationTimeEstimator;
+    private final TokenArchiveStore archiveStore;
+    private final QueueStatsService queueStatsService;
+
+    @Value("${queue.history.window-days:30}")
+    private int historyWindowDays;
+
+    @Value("${queue.history.max-page-size:50}")
+    private int historyMaxPageSize;
+
+    @Value("${queue.batch.max-size:10000}")
+    private int batchMaxSize;
+
+    @Value("${queue.batch.chunk-size:500}")
+    private int batchChunkSize;
 
     public TokenResponse generateToken(TokenGenerationRequest request) {
-        Optional<QueueToken> existing = tokenRepository.findByPatientIdAndDoctorIdAndDate(
-                request.getPatientId(),
-                request.getDoctorId(),
-                request.getDate()
-        );
-
-        if (existing.isPresent() &&
-                existing.get().getStatus() == QueueToken.TokenStatus.WAITING) {
+        TokenIssuer.Issued issued = tokenIssuer.issue(request.getDoctorId(), request.getDate(), List.of(
+                new TokenIssuer.Request(request.getPatientId(), request.getDepartmentId(),
+                        request.getAppointmentId(), parsePriority(request.getPriority()))));
+
+        TokenIssuer.Outcome outcome = issued.outcomes().get(0);
+        if (!outcome.issued()) {
             throw new TokenAlreadyExistsException("Token already exists for this date");
         }
 
-        Integer nextTokenNumber = getNextTokenNumber(request.getDoctorId(), request.getDate());
-        int position = calculatePosition(request.getDoctorId(), request.getDate());
-        int estimatedWaitMinutes = position * AVERAGE_CONSULTATION_MINUTES;
-        LocalDateTime estimatedTime = LocalDateTime.now().plusMinutes(estimatedWaitMinutes);
+        QueueToken token = outcome.token();
+        applyPosition(token, outcome.position());
+        queueStatsService.recordIssued(List.of(token));
+        eventPublisher.publish(QueueEvent.EventType.TOKEN_ISSUED, token, issued.queueVersion());
+        log.info("Generated token: {} for patient: {}", token.getTokenNumber(), request.getPatientId());
 
-        QueueToken token = QueueToken.builder()
-                .tokenId(UUID.randomUUID().toString())
-                .patientId(request.getPatientId())
-                .doctorId(request.getDoctorId())
-                .departmentId(request.getDepartmentId())
-                .tokenNumber(nextTokenNumber)
-                .date(request.getDate())
-                .issueTime(LocalDateTime.now())
-                .estimatedTime(estimatedTime)
-                .status(QueueToken.TokenStatus.WAITING)
-                .position(position)
-                .estimatedWaitMinutes(estimatedWaitMinutes)
-                .appointmentId(request.getAppointmentId())
-                .priority(parsePriority(request.getPriority()))
-                .build();
+        return mapToResponse(token);
+    }
+
+    /**
+     * Issues pre-booked tokens in bulk. Requests are grouped by doctor/day and
+     * each group is issued by one script invocation, all groups in one pipelined
+     * round trip; a group that fails is retried on its own with the same token ids,
+     * so one bad group cannot sink the rest and a group that already committed is
+     * not reported as duplicates. Every item gets its own outcome in request order.
+     */
+    public BatchTokenResponse generateTokens(List<TokenGenerationRequest> requests) {
+        if (requests.size() > batchMaxSize) {
+            throw new BatchTooLargeException("Batch exceeds " + batchMaxSize + " tokens");
+        }
+
+        BatchTokenResponse.ItemResult[] results = new BatchTokenResponse.ItemResult[requests.size()];
+        Map<String, List<Integer>> indexesByQueue = new LinkedHashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            TokenGenerationRequest request = requests.get(i);
+            if (request.getPatientId() == null || request.getDoctorId() == null || request.getDate() == null) {
+                results[i] = itemResult(i, request, "INVALID")
+                        .error("patientId, doctorId and date are required")
+                        .build();
+                continue;
+            }
+            indexesByQueue.computeIfAbsent(request.getDoctorId() + "|" + request.getDate(), key -> new ArrayList<>())
+                    .add(i);
+        }
 
-        QueueToken savedToken = tokenRepository.save(token);
-        log.info("Generated token: {} for patient: {}", nextTokenNumber, request.getPatientId());
+        List<TokenIssuer.Group> groups = new ArrayList<>();
+        List<List<Integer>> groupIndexes = new ArrayList<>();
+        for (List<Integer> indexes : indexesByQueue.values()) {
+            for (int from = 0; from < indexes.size(); from += batchChunkSize) {
+                List<Integer> chunk = indexes.subList(from, Math.min(from + batchChunkSize, indexes.size()));
+                TokenGenerationRequest first = requests.get(chunk.get(0));
+                groups.add(new TokenIssuer.Group(first.getDoctorId(), first.getDate(), chunk.stream()
+                        .map(requests::get)
+                        .map(request -> new TokenIssuer.Request(request.getPatientId(), request.getDepartmentId(),
+                                request.getAppointmentId(), parsePriority(request.getPriority())))
+                        .toList()));
+                groupIndexes.add(chunk);
+            }
+        }
 
-        return mapToResponse(savedToken);
+        List<TokenIssuer.Issued> issued = tokenIssuer.issueAll(groups);
+
+        for (int g = 0; g < groups.size(); g++) {
+            List<Integer> indexes = groupIndexes.get(g);
+            TokenIssuer.Issued groupIssued = issued.get(g);
+            if (groupIssued.failed()) {
+                for (Integer index : indexes) {
+                    results[index] = itemResult(index, requests.get(index), "FAILED")
+                            .error(groupIssued.failure().getMessage())
+                            .build();
+                }
+                continue;
+            }
+
+            List<QueueToken> issuedTokens = new ArrayList<>();
+            for (int i = 0; i < indexes.size(); i++) {
+                int index = indexes.get(i);
+                TokenIssuer.Outcome outcome = groupIssued.outcomes().get(i);
+                if (outcome.issued()) {
+                    applyPosition(outcome.token(), outcome.position());
+                    results[index] = itemResult(index, requests.get(index), "ISSUED")
+                            .token(mapToResponse(outcome.token()))
+                            .build();
+                    issuedTokens.add(outcome.token());
+                } else {
+                    results[index] = itemResult(index, requests.get(index), "DUPLICATE")
+                            .existingTokenId(outcome.existingTokenId())
+                            .error("Token already exists for this date")
+                            .build();
+                }
+            }
+            if (!issuedTokens.isEmpty()) {
+                queueStatsService.recordIssued(issuedTokens);
+                // One event per doctor/day group; displays re-read counters on any event
+                eventPublisher.publish(QueueEvent.EventType.TOKEN_ISSUED,
+                        issuedTokens.get(issuedTokens.size() - 1), groupIssued.queueVersion());
+            }
+        }
+
+        int issuedCount = (int) Arrays.stream(results).filter(r -> "ISSUED".equals(r.getOutcome())).count();
+        log.info("Batch issued {} of {} tokens across {} groups", issuedCount, requests.size(), groups.size());
+
+        return BatchTokenResponse.builder()
+                .requested(requests.size())
+                .issued(issuedCount)
+                .failed(requests.size() - issuedCount)
+                .results(Arrays.asList(results))
+                .build();
     }
 
     public TokenResponse getTokenStatus(String tokenId) {
         QueueToken token = tokenRepository.findById(tokenId)
                 .orElseThrow(() -> new RuntimeException("Token not found"));
 
-        updateTokenPosition(token);
+        if (token.getStatus() == QueueToken.TokenStatus.WAITING) {
+            tokenQueueService.rank(token).ifPresent(rank -> applyPosition(token, rank.intValue() + 1));
+        }
 
         return mapToResponse(token);
     }
 
     public QueueStatusResponse getQueueStatus(String doctorId, LocalDate date) {
-        List<QueueToken> waitingTokens = tokenRepository.findByDoctorIdAndDateAndStatus(
-                doctorId, date, QueueToken.TokenStatus.WAITING
-        );
-
-        List<QueueToken> allTokens = tokenRepository.findByDoctorIdAndDateOrderByTokenNumberAsc(
-                doctorId, date
-        );
-
-        Integer currentToken = allTokens.stream()
-                .filter(t -> t.getStatus() == QueueToken.TokenStatus.IN_PROGRESS)
-                .map(QueueToken::getTokenNumber)
-                .findFirst()
-                .orElse(0);
-
-        Integer lastServed = allTokens.stream()
-                .filter(t -> t.getStatus() == QueueToken.TokenStatus.COMPLETED)
-                .map(QueueToken::getTokenNumber)
-                .max(Integer::compareTo)
-                .orElse(0);
+        Map<Object, Object> state = tokenQueueService.state(doctorId, date);
+        if (state.isEmpty()) {
+            reconciliationService.reconcile(doctorId, date);
+            state = tokenQueueService.state(doctorId, date);
+        }
+
+        int totalWaiting = counter(state, "waiting");
 
         return QueueStatusResponse.builder()
                 .doctorId(doctorId)
                 .date(date)
-                .currentToken(currentToken)
-                .totalWaiting(waitingTokens.size())
-                .averageWaitMinutes(waitingTokens.size() * AVERAGE_CONSULTATION_MINUTES)
-                .lastServedToken(lastServed)
+                .currentToken(counter(state, "current"))
+                .totalWaiting(totalWaiting)
+                .averageWaitMinutes((int) Math.round(
+                        totalWaiting * consultationTimeEstimator.minutesPerConsultation(doctorId, null)))
+                .lastServedToken(counter(state, "lastServed"))
+                .queueVersion((long) counter(state, "version"))
                 .build();
     }
 
-    public List<TokenResponse> getPatientTokens(String patientId) {
-        List<QueueToken> tokens = new ArrayList<>();
-        tokenRepository.findAll().forEach(token -> {
-            if (token.getPatientId().equals(patientId)) {
-                tokens.add(token);
-            }
-        });
-
-        return tokens.stream()
-                .sorted(Comparator.comparing(QueueToken::getIssueTime).reversed())
+    public TokenHistoryResponse getPatientTokens(String patientId, String before, Integer limit) {
+        int pageSize = limit == null || limit <= 0 ? historyMaxPageSize : Math.min(limit, historyMaxPageSize);
+        PatientTokenIndex.Cursor cursor = PatientTokenIndex.Cursor.parse(before);
+        long sinceMillis = PatientTokenIndex.score(LocalDateTime.now().minusDays(historyWindowDays));
+
+        List<PatientTokenIndex.Entry> entries =
+                patientTokenIndex.page(patientId, sinceMillis, cursor, pageSize);
+
+        Map<String, QueueToken> tokensById = new HashMap<>();
+        tokenRepository.findAllById(entries.stream()
+                        .filter(entry -> !entry.archived())
+                        .map(PatientTokenIndex.Entry::tokenId)
+                        .toList())
+                .forEach(token -> tokensById.put(token.getId(), token));
+
+        // Older days live in the archive; read each archived day once for this page
+        entries.stream()
+                .filter(PatientTokenIndex.Entry::archived)
+                .collect(Collectors.groupingBy(PatientTokenIndex.Entry::archivedDate,
+                        Collectors.mapping(PatientTokenIndex.Entry::tokenId, Collectors.toSet())))
+                .forEach((date, ids) -> tokensById.putAll(archiveStore.find(date, ids)));
+
+        List<TokenResponse> tokens = entries.stream()
+                .map(entry -> tokensById.get(entry.tokenId()))
+                .filter(Objects::nonNull)
                 .map(this::mapToResponse)
                 .collect(Collectors.toList());
+
+        return TokenHistoryResponse.builder()
+                .patientId(patientId)
+                .tokens(tokens)
+                .nextCursor(PatientTokenIndex.nextCursor(entries, pageSize))
+                .build();
     }
 
     public TokenResponse callNextToken(String doctorId, LocalDate date) {
-        List<QueueToken> waitingTokens = tokenRepository.findByDoctorIdAndDateAndStatus(
-                doctorId, date, QueueToken.TokenStatus.WAITING
-        );
-
-        if (waitingTokens.isEmpty()) {
-            throw new RuntimeException("No tokens in queue");
+        QueueToken nextToken = null;
+        TokenQueueService.Popped popped = null;
+        LocalDateTime calledAt = null;
+        while (nextToken == null) {
+            popped = tokenQueueService.pollNext(doctorId, date)
+                    .orElseThrow(() -> new RuntimeException("No tokens in queue"));
+            calledAt = LocalDateTime.now();
+            nextToken = tokenRepository.findById(popped.tokenId()).orElse(null);
+            // A token cancelled between the pop and this call is skipped
+            if (nextToken != null && !tokenQueueService.transition(nextToken, QueueToken.TokenStatus.CALLED,
+                    "actualCallTime", calledAt, QueueToken.TokenStatus.WAITING).applied()) {
+                nextToken = null;
+            }
         }
 
-        QueueToken nextToken = waitingTokens.stream()
-                .sorted(Comparator
-                        .comparing(QueueToken::getPriority,
-                                Comparator.comparingInt(QueueToken.TokenPriority::getValue))
-                        .thenComparing(QueueToken::getTokenNumber))
-                .findFirst()
-                .orElseThrow();
-
         nextToken.setStatus(QueueToken.TokenStatus.CALLED);
-        nextToken.setActualCallTime(LocalDateTime.now());
-        tokenRepository.save(nextToken);
+        nextToken.setActualCallTime(calledAt);
+        queueStatsService.recordCalled(nextToken);
+        eventPublisher.publish(QueueEvent.EventType.TOKEN_CALLED, nextToken, popped.version());
 
         log.info("Called token: {} for doctor: {}", nextToken.getTokenNumber(), doctorId);
 
@@ -144,59 +252,89 @@ public class QueueService {
         QueueToken token = tokenRepository.findById(tokenId)
                 .orElseThrow(() -> new RuntimeException("Token not found"));
 
+        LocalDateTime startedAt = LocalDateTime.now();
+        transition(token, QueueToken.TokenStatus.IN_PROGRESS, "consultationStartTime", startedAt,
+                QueueToken.TokenStatus.CALLED);
         token.setStatus(QueueToken.TokenStatus.IN_PROGRESS);
-        tokenRepository.save(token);
+        token.setConsultationStartTime(startedAt);
+        long queueVersion = tokenQueueService.start(token);
+        queueStatsService.recordStarted(token);
+        eventPublisher.publish(QueueEvent.EventType.CONSULTATION_STARTED, token, queueVersion);
     }
 
     public void completeToken(String tokenId) {
         QueueToken token = tokenRepository.findById(tokenId)
                 .orElseThrow(() -> new RuntimeException("Token not found"));
 
+        TokenQueueService.Transition transition = transition(token, QueueToken.TokenStatus.COMPLETED, null, null,
+                QueueToken.TokenStatus.CALLED, QueueToken.TokenStatus.IN_PROGRESS);
         token.setStatus(QueueToken.TokenStatus.COMPLETED);
-        tokenRepository.save(token);
-
-        updateQueuePositions(token.getDoctorId(), token.getDate());
+        long queueVersion = tokenQueueService.complete(token);
+        // Only a consultation that actually ran is a sample of how long they take
+        if (transition.previous() == QueueToken.TokenStatus.IN_PROGRESS) {
+            consultationTimeEstimator.record(token, LocalDateTime.now());
+        }
+        queueStatsService.recordCompleted(token);
+        eventPublisher.publish(QueueEvent.EventType.TOKEN_COMPLETED, token, queueVersion);
     }
 
-    private Integer getNextTokenNumber(String doctorId, LocalDate date) {
-        Long count = tokenRepository.countByDoctorIdAndDate(doctorId, date);
-        return count.intValue() + 1;
-    }
+    public void cancelToken(String tokenId) {
+        QueueToken token = tokenRepository.findById(tokenId)
+                .orElseThrow(() -> new RuntimeException("Token not found"));
 
-    private int calculatePosition(String doctorId, LocalDate date) {
-        List<QueueToken> waiting = tokenRepository.findByDoctorIdAndDateAndStatus(
-                doctorId, date, QueueToken.TokenStatus.WAITING
-        );
-        return waiting.size() + 1;
+        // The status the script saw, not the one read above, says whether the token still counted as waiting
+        TokenQueueService.Transition transition = transition(token, QueueToken.TokenStatus.CANCELED, null, null,
+                QueueToken.TokenStatus.WAITING, QueueToken.TokenStatus.CALLED);
+        token.setStatus(QueueToken.TokenStatus.CANCELED);
+        long queueVersion = tokenQueueService.remove(token);
+        queueStatsService.recordCanceled(token, transition.previous() == QueueToken.TokenStatus.WAITING);
+        eventPublisher.publish(QueueEvent.EventType.TOKEN_CANCELED, token, queueVersion);
     }
 
-    private void updateTokenPosition(QueueToken token) {
-        List<QueueToken> waitingBefore = tokenRepository
-                .findByDoctorIdAndDateAndStatus(token.getDoctorId(), token.getDate(),
-                        QueueToken.TokenStatus.WAITING)
-                .stream()
-                .filter(t -> t.getTokenNumber() < token.getTokenNumber())
-                .collect(Collectors.toList());
-
-        int newPosition = waitingBefore.size() + 1;
-        int newWaitTime = newPosition * AVERAGE_CONSULTATION_MINUTES;
+    /**
+     * Applies a status transition atomically, rejecting it when the token is not
+     * in one of the {@code from} statuses, e.g. a repeated complete or a cancel
+     * after the consultation began. Callers run their side effects only after this
+     * returns, so each one happens once per real transition.
+     */
+    private TokenQueueService.Transition transition(QueueToken token, QueueToken.TokenStatus to, String timeField,
+                                                    LocalDateTime at, QueueToken.TokenStatus... from) {
+        TokenQueueService.Transition transition = tokenQueueService.transition(token, to, timeField, at, from);
+        if (!transition.applied()) {
+            throw new InvalidTokenTransitionException("Token is " + transition.previous() + ", cannot move to " + to);
+        }
+        return transition;
+    }
 
-        token.setPosition(newPosition);
-        token.setEstimatedWaitMinutes(newWaitTime);
-        token.setEstimatedTime(LocalDateTime.now().plusMinutes(newWaitTime));
+    /**
+     * Sets the live position and wait estimate on a token being read. The token
+     * is not saved; positions are derived from the queue on every read.
+     */
+    void applyPosition(QueueToken token, int position) {
+        int waitMinutes = (int) Math.round(position * consultationTimeEstimator
+                .minutesPerConsultation(token.getDoctorId(), token.getDepartmentId()));
+
+        token.setPosition(position);
+        token.setEstimatedWaitMinutes(waitMinutes);
+        token.setEstimatedTime(LocalDateTime.now().plusMinutes(waitMinutes));
+    }
 
-        tokenRepository.save(token);
+    public ConsultationEstimateResponse getConsultationEstimate(String doctorId, String departmentId) {
+        return consultationTimeEstimator.estimate(doctorId, departmentId);
     }
 
-    private void updateQueuePositions(String doctorId, LocalDate date) {
-        List<QueueToken> waitingTokens = tokenRepository.findByDoctorIdAndDateAndStatus(
-                doctorId, date, QueueToken.TokenStatus.WAITING
-        );
+    private BatchTokenResponse.ItemResult.ItemResultBuilder itemResult(int index, TokenGenerationRequest request,
+                                                                       String outcome) {
+        return BatchTokenResponse.ItemResult.builder()
+                .index(index)
+                .patientId(request.getPatientId())
+                .doctorId(request.getDoctorId())
+                .outcome(outcome);
+    }
 
-        for (int i = 0; i < waitingTokens.size(); i++) {
-            QueueToken token = waitingTokens.get(i);
-            updateTokenPosition(token);
-        }
+    private int counter(Map<Object, Object> state, String field) {
+        Object value = state.get(field);
+        return value != null ? Integer.parseInt(value.toString()) : 0;
     }
 
     private QueueToken.TokenPriority parsePriority(String priority) {
@@ -207,26 +345,33 @@ public class QueueService {
         }
     }
 
-    private TokenResponse mapToResponse(QueueToken token) {
+    TokenResponse mapToResponse(QueueToken token) {
         return TokenResponse.builder()
-                .tokenId(token.getTokenId())
+                .tokenId(token.getId())
                 .patientId(token.getPatientId())
                 .doctorId(token.getDoctorId())
                 .tokenNumber(token.getTokenNumber())
                 .date(token.getDate())
-                .issueTime(token.getIssueTime())
-                .estimatedTime(token.getEstimatedTime())
+                .issueTime(toLocalTime(token.getIssueTime()))
+                .estimatedTime(toLocalTime(token.getEstimatedTime()))
                 .status(token.getStatus().name())
                 .position(token.getPosition())
-                .estimatedWaitMinutes(token.getEstimatedWaitMinutes())
+                .estimatedWaitingMinutes(token.getEstimatedWaitMinutes())
                 .priority(token.getPriority().name())
                 .message(generateStatusMessage(token))
                 .build();
     }
 
+    private LocalTime toLocalTime(LocalDateTime dateTime) {
+        return dateTime != null ? dateTime.toLocalTime() : null;
+    }
+
     private String generateStatusMessage(QueueToken token) {
         switch (token.getStatus()) {
             case WAITING:
+                if (token.getPosition() == null) {
+                    return "You are in the queue.";
+                }
                 return String.format("You are #%d in queue. Estimated wait: %d minutes",
                         token.getPosition(), token.getEstimatedWaitMinutes());
             case CALLED:
@@ -0,0 +1,169 @@
+package com.example.queue_service.service;
+
+import com.example.queue_service.dto.QueueStatsResponse;
+import com.example.queue_service.exception.InvalidStatsRangeException;
+import com.example.queue_service.model.QueueStats;
+import com.example.queue_service.model.QueueToken;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.convert.Bucket;
+import org.springframework.data.redis.core.convert.RedisConverter;
+import org.springframework.data.redis.core.convert.RedisData;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * Daily analytics rollups per doctor and per department. Every token transition
+ * is folded into the day's {@link QueueStats} hashes by one script call, so the
+ * counters are always current and a date range is served by reading one hash
+ * per day, all in one pipelined round trip, never the tokens themselves. Rollups carry no expiry and outlive the
+ * token archival. Each transition also bumps the {@code queue.token.transitions}
+ * counter, whose rate is the throughput of each state.
+ *
+ * <p>Callers record a transition only after the token's status script applied
+ * it, so a retried or rejected request never counts twice.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class QueueStatsService {
+
+    private static final String KEY_PREFIX = "QueueStats:";
+    private static final String ID_SET_KEY = "QueueStats";
+    private static final RedisScript<Long> RECORD_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/stats-record.lua"), Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final RedisConverter redisConverter;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${queue.stats.max-range-days:366}")
+    private int maxRangeDays;
+
+    /**
+     * Counts issued tokens, grouped by department so a bulk import costs one call
+     * per department rather than one per token.
+     */
+    public void recordIssued(List<QueueToken> tokens) {
+        tokens.stream()
+                .collect(Collectors.groupingBy(token -> Objects.toString(token.getDepartmentId(), "")))
+                .values()
+                .forEach(group -> record("ISSUED", group.get(0), group.size()));
+    }
+
+    public void recordCalled(QueueToken token) {
+        double waited = token.getIssueTime() != null && token.getActualCallTime() != null
+                ? Math.max(0, Duration.between(token.getIssueTime(), token.getActualCallTime()).toSeconds() / 60.0)
+                : 0;
+        record("CALLED", token, waited);
+    }
+
+    public void recordStarted(QueueToken token) {
+        record("STARTED", token, 0);
+    }
+
+    public void recordCompleted(QueueToken token) {
+        record("COMPLETED", token, 0);
+    }
+
+    public void recordCanceled(QueueToken token, boolean wasWaiting) {
+        record("CANCELED", token, wasWaiting ? 1 : 0);
+    }
+
+    public QueueStatsResponse getStats(QueueStats.Scope scope, String id, LocalDate from, LocalDate to) {
+        if (to.isBefore(from)) {
+            throw new InvalidStatsRangeException("'to' must not be before 'from'");
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= maxRangeDays) {
+            throw new InvalidStatsRangeException("Range exceeds " + maxRangeDays + " days");
+        }
+
+        List<String> ids = new ArrayList<>();
+        for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+            ids.add(statsId(scope, id, date));
+        }
+
+        List<QueueStats> days = readRollups(ids);
+        days.sort(Comparator.comparing(QueueStats::getDate));
+
+        int called = days.stream().mapToInt(day -> orZero(day.getCalledTokens())).sum();
+        double waited = days.stream().mapToDouble(day -> Objects.requireNonNullElse(day.getTotalWaitMinutes(), 0.0)).sum();
+
+        return QueueStatsResponse.builder()
+                .scope(scope.name())
+                .id(id)
+                .from(from)
+                .to(to)
+                .totalTokens(days.stream().mapToInt(day -> orZero(day.getTotalTokens())).sum())
+                .completedTokens(days.stream().mapToInt(day -> orZero(day.getCompletedTokens())).sum())
+                .canceledTokens(days.stream().mapToInt(day -> orZero(day.getCanceledTokens())).sum())
+                .averageWaitMinutes(called > 0 ? waited / called : 0.0)
+                .days(days)
+                .build();
+    }
+
+    /**
+     * Reads the rollup hashes of {@code ids} in one pipelined round trip and decodes
+     * them with the repository's converter; days without a rollup are left out.
+     */
+    @SuppressWarnings("unchecked")
+    private List<QueueStats> readRollups(List<String> ids) {
+        List<Object> hashes = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (String id : ids) {
+                connection.hashCommands().hGetAll((KEY_PREFIX + id).getBytes(StandardCharsets.UTF_8));
+            }
+            return null;
+        });
+
+        List<QueueStats> days = new ArrayList<>(ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            Map<String, String> hash = (Map<String, String>) hashes.get(i);
+            if (hash != null && !hash.isEmpty()) {
+                RedisData data = new RedisData(Bucket.newBucketFromStringMap(hash));
+                data.setId(ids.get(i));
+                days.add(redisConverter.read(QueueStats.class, data));
+            }
+        }
+        return days;
+    }
+
+    private void record(String transition, QueueToken token, double amount) {
+        meterRegistry.counter("queue.token.transitions", "transition", transition)
+                .increment("ISSUED".equals(transition) ? amount : 1);
+
+        List<String> keys = new ArrayList<>();
+        keys.add(ID_SET_KEY);
+        keys.add(KEY_PREFIX + statsId(QueueStats.Scope.DOCTOR, token.getDoctorId(), token.getDate()));
+        if (token.getDepartmentId() != null) {
+            keys.add(KEY_PREFIX + statsId(QueueStats.Scope.DEPARTMENT, token.getDepartmentId(), token.getDate()));
+        }
+
+        redisTemplate.execute(RECORD_SCRIPT, keys, transition, String.valueOf(amount),
+                String.valueOf(token.getTokenNumber()), token.getDate().toString(),
+                token.getDoctorId(), Objects.toString(token.getDepartmentId(), ""));
+    }
+
+    static String statsId(QueueStats.Scope scope, String id, LocalDate date) {
+        return scope.key() + ":" + id + ":" + date;
+    }
+
+    private static int orZero(Integer value) {
+        return value != null ? value : 0;
+    }
+}
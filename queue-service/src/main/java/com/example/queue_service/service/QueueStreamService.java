@@ -0,0 +1,278 @@
+package com.example.queue_service.service;
+
+import com.example.queue_service.dto.QueueEvent;
+import com.example.queue_service.exception.StreamCapacityExceededException;
+import com.example.queue_service.model.QueueToken;
+import com.example.queue_service.repository.QueueTokenRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Server-Sent Event streams for waiting-room displays (one per doctor/day) and
+ * patient phones (one per token). Events arrive from the Redis channel written by
+ * {@link QueueEventPublisher}, so every replica serves only its own connections.
+ *
+ * <p>Each subscriber has its own bounded outbox drained by a shared pool. A
+ * subscriber whose outbox fills up is too slow to keep up and is evicted; the
+ * client reconnects and re-reads the current status. Token subscribers' positions
+ * are looked up on the same pool, never on the Redis listener thread.
+ */
+@Service
+@Slf4j
+public class QueueStreamService implements MessageListener {
+
+    private final TokenQueueService tokenQueueService;
+    private final QueueTokenRepository tokenRepository;
+    private final JsonMapper jsonMapper;
+    private final Executor dispatcher;
+
+    private final Map<String, Set<Subscriber>> queueSubscribers = new ConcurrentHashMap<>();
+    private final Map<String, Set<Subscriber>> tokenSubscribers = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<Void>> tokenLanes = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+
+    @Value("${queue.stream.max-pending-events:64}")
+    private int maxPendingEvents;
+
+    @Value("${queue.stream.max-subscribers:5000}")
+    private int maxSubscribers;
+
+    @Value("${queue.stream.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    public QueueStreamService(TokenQueueService tokenQueueService, QueueTokenRepository tokenRepository,
+                              JsonMapper jsonMapper, MeterRegistry meterRegistry,
+                              @Value("${queue.stream.dispatch-threads:4}") int dispatchThreads,
+                              @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.tokenQueueService = tokenQueueService;
+        this.tokenRepository = tokenRepository;
+        this.jsonMapper = jsonMapper;
+        // Sends block on slow sockets; on virtual threads a stuck client no longer holds a pool thread
+        this.dispatcher = virtualThreads && Runtime.version().feature() >= 21
+                ? new VirtualThreadTaskExecutor("queue-stream-")
+                : Executors.newFixedThreadPool(dispatchThreads);
+        Gauge.builder("queue.stream.subscribers", subscriberCount, AtomicInteger::get)
+                .description("Live queue and token event streams on this instance")
+                .register(meterRegistry);
+    }
+
+    public SseEmitter subscribeQueue(String doctorId, LocalDate date) {
+        return register(queueSubscribers, queueKey(doctorId, date), null);
+    }
+
+    public SseEmitter subscribeToken(String tokenId) {
+        QueueToken token = tokenRepository.findById(tokenId)
+                .orElseThrow(() -> new RuntimeException("Token not found"));
+        return register(tokenSubscribers, queueKey(token.getDoctorId(), token.getDate()), tokenId);
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        QueueEvent event;
+        try {
+            event = jsonMapper.readValue(new String(message.getBody(), StandardCharsets.UTF_8), QueueEvent.class);
+        } catch (RuntimeException e) {
+            log.warn("Dropping unreadable queue event", e);
+            return;
+        }
+
+        String queueKey = queueKey(event.getDoctorId(), event.getDate());
+        Set<Subscriber> displays = queueSubscribers.get(queueKey);
+        if (displays != null) {
+            displays.forEach(subscriber -> subscriber.offer(event));
+        }
+
+        Set<Subscriber> phones = tokenSubscribers.get(queueKey);
+        if (phones != null && !phones.isEmpty()) {
+            List<Subscriber> snapshot = new ArrayList<>(phones);
+            // The rank lookup goes to Redis; keep it off the listener thread, one queue's events in order
+            CompletableFuture<Void> lane = tokenLanes.compute(queueKey, (key, tail) -> (tail != null
+                    ? tail.exceptionally(error -> null)
+                    : CompletableFuture.<Void>completedFuture(null))
+                    .thenRunAsync(() -> notifyTokens(event, snapshot), dispatcher));
+            lane.whenComplete((ignored, error) -> tokenLanes.remove(queueKey, lane));
+        }
+    }
+
+    /**
+     * Sends each token subscriber its own transitions, and its new position whenever
+     * the queue it waits in moves. Positions for all local subscribers of a queue are
+     * looked up in one pipelined round trip.
+     */
+    private void notifyTokens(QueueEvent event, List<Subscriber> phones) {
+        List<Long> ranks;
+        try {
+            ranks = tokenQueueService.ranks(event.getDoctorId(), event.getDate(),
+                    phones.stream().map(Subscriber::tokenId).toList());
+        } catch (RuntimeException e) {
+            log.warn("Could not look up positions for queue event {}", event.getType(), e);
+            return;
+        }
+
+        for (int i = 0; i < phones.size(); i++) {
+            Subscriber phone = phones.get(i);
+            Long rank = ranks.get(i);
+
+            if (phone.tokenId().equals(event.getTokenId())) {
+                phone.offer(event);
+            } else if (rank != null) {
+                phone.offer(QueueEvent.builder()
+                        .type(QueueEvent.EventType.POSITION_CHANGED)
+                        .doctorId(event.getDoctorId())
+                        .date(event.getDate())
+                        .tokenId(phone.tokenId())
+                        .status("WAITING")
+                        .queueVersion(event.getQueueVersion())
+                        .position(rank.intValue() + 1)
+                        .occurredAt(event.getOccurredAt())
+                        .build());
+            }
+        }
+    }
+
+    /**
+     * Keeps idle connections alive through proxies and flushes out clients that
+     * disconnected without the container noticing.
+     */
+    @Scheduled(fixedDelayString = "${queue.stream.heartbeat-ms:15000}")
+    public void heartbeat() {
+        queueSubscribers.values().forEach(set -> set.forEach(Subscriber::heartbeat));
+        tokenSubscribers.values().forEach(set -> set.forEach(Subscriber::heartbeat));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (dispatcher instanceof ExecutorService pool) {
+            pool.shutdownNow();
+        }
+    }
+
+    private SseEmitter register(Map<String, Set<Subscriber>> registry, String queueKey, String tokenId) {
+        if (subscriberCount.incrementAndGet() > maxSubscribers) {
+            subscriberCount.decrementAndGet();
+            throw new StreamCapacityExceededException("Too many live queue streams, retry shortly");
+        }
+
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Subscriber subscriber = new Subscriber(emitter, tokenId);
+        registry.computeIfAbsent(queueKey, key -> ConcurrentHashMap.newKeySet()).add(subscriber);
+
+        Runnable unregister = () -> {
+            Set<Subscriber> subscribers = registry.get(queueKey);
+            if (subscribers != null && subscribers.remove(subscriber)) {
+                subscriberCount.decrementAndGet();
+                registry.computeIfPresent(queueKey, (key, set) -> set.isEmpty() ? null : set);
+            }
+        };
+        emitter.onCompletion(unregister);
+        emitter.onTimeout(unregister);
+        emitter.onError(error -> unregister.run());
+
+        return emitter;
+    }
+
+    private static String queueKey(String doctorId, LocalDate date) {
+        return doctorId + ":" + date;
+    }
+
+    private final class Subscriber {
+
+        private final SseEmitter emitter;
+        private final String tokenId;
+        private final Queue<Object> outbox = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger pending = new AtomicInteger();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile boolean evicted;
+
+        private Subscriber(SseEmitter emitter, String tokenId) {
+            this.emitter = emitter;
+            this.tokenId = tokenId;
+        }
+
+        String tokenId() {
+            return tokenId;
+        }
+
+        void offer(QueueEvent event) {
+            enqueue(event);
+        }
+
+        void heartbeat() {
+            enqueue(LocalDateTime.now());
+        }
+
+        private void enqueue(Object payload) {
+            if (evicted) {
+                return;
+            }
+            if (pending.incrementAndGet() > maxPendingEvents) {
+                evict("slow consumer");
+                return;
+            }
+            outbox.add(payload);
+            if (draining.compareAndSet(false, true)) {
+                dispatcher.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            try {
+                Object payload;
+                while (!evicted && (payload = outbox.poll()) != null) {
+                    pending.decrementAndGet();
+                    if (payload instanceof QueueEvent event) {
+                        emitter.send(SseEmitter.event()
+                                .name(event.getType().name())
+                                .id(String.valueOf(event.getQueueVersion()))
+                                .data(event));
+                    } else {
+                        emitter.send(SseEmitter.event().comment("heartbeat " + payload));
+                    }
+                }
+            } catch (Exception e) {
+                evict("send failed");
+            } finally {
+                draining.set(false);
+                if (!evicted && !outbox.isEmpty() && draining.compareAndSet(false, true)) {
+                    dispatcher.execute(this::drain);
+                }
+            }
+        }
+
+        private void evict(String reason) {
+            if (!evicted) {
+                evicted = true;
+                outbox.clear();
+                log.debug("Evicting queue stream subscriber: {}", reason);
+                emitter.complete();
+            }
+        }
+    }
+}
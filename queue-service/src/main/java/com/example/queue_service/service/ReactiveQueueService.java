@@ -0,0 +1,164 @@
+package com.example.queue_service.service;
+
+import com.example.queue_service.dto.QueueStatusResponse;
+import com.example.queue_service.dto.TokenHistoryResponse;
+import com.example.queue_service.dto.TokenResponse;
+import com.example.queue_service.model.QueueToken;
+import com.example.queue_service.repository.ReactiveQueueTokenStore;
+import com.example.queue_service.repository.TokenArchiveStore;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.Limit;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.stream.Collectors;
+
+/**
+ * Non-blocking counterparts of the hot read paths in {@link QueueService}. They
+ * read the same Redis structures through {@link ReactiveStringRedisTemplate}, so a
+ * request never parks a servlet thread while waiting on Redis. Writes stay on
+ * the blocking service.
+ */
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "queue.reactive.enabled", havingValue = "true")
+public class ReactiveQueueService {
+
+    private final ReactiveStringRedisTemplate redisTemplate;
+    private final ReactiveQueueTokenStore tokenStore;
+    private final QueueService queueService;
+    private final ConsultationTimeEstimator consultationTimeEstimator;
+    private final TokenArchiveStore archiveStore;
+
+    @Value("${queue.history.window-days:30}")
+    private int historyWindowDays;
+
+    @Value("${queue.history.max-page-size:50}")
+    private int historyMaxPageSize;
+
+    public Mono<QueueStatusResponse> getQueueStatus(String doctorId, LocalDate date) {
+        Mono<Map<String, String>> state = redisTemplate.<String, String>opsForHash()
+                .entries(TokenQueueService.stateKey(doctorId, date))
+                .collectMap(Map.Entry::getKey, Map.Entry::getValue);
+        Mono<Double> minutes = blocking(() -> consultationTimeEstimator.minutesPerConsultation(doctorId, null));
+
+        return Mono.zip(state, minutes).flatMap(tuple -> {
+            if (tuple.getT1().isEmpty()) {
+                // Counters missing: let the blocking path reconcile them off the event loop
+                return blocking(() -> queueService.getQueueStatus(doctorId, date));
+            }
+            int waiting = counter(tuple.getT1(), "waiting");
+            return Mono.just(QueueStatusResponse.builder()
+                    .doctorId(doctorId)
+                    .date(date)
+                    .currentToken(counter(tuple.getT1(), "current"))
+                    .totalWaiting(waiting)
+                    .averageWaitMinutes((int) Math.round(waiting * tuple.getT2()))
+                    .lastServedToken(counter(tuple.getT1(), "lastServed"))
+                    .queueVersion((long) counter(tuple.getT1(), "version"))
+                    .build());
+        });
+    }
+
+    public Mono<TokenResponse> getTokenStatus(String tokenId) {
+        return tokenStore.findById(tokenId)
+                .switchIfEmpty(Mono.error(() -> new RuntimeException("Token not found")))
+                .flatMap(token -> {
+                    if (token.getStatus() != QueueToken.TokenStatus.WAITING) {
+                        return Mono.just(queueService.mapToResponse(token));
+                    }
+                    return redisTemplate.opsForZSet()
+                            .rank(TokenQueueService.waitingKey(token.getDoctorId(), token.getDate()), token.getId())
+                            .flatMap(rank -> blocking(() -> {
+                                queueService.applyPosition(token, rank.intValue() + 1);
+                                return token;
+                            }))
+                            .defaultIfEmpty(token)
+                            .map(queueService::mapToResponse);
+                });
+    }
+
+    /**
+     * Same page, cursor, window and page-size rules as {@link QueueService#getPatientTokens}.
+     * Archived entries are read once per archive day.
+     */
+    public Mono<TokenHistoryResponse> getPatientTokens(String patientId, String before, Integer limit) {
+        int pageSize = limit == null || limit <= 0 ? historyMaxPageSize : Math.min(limit, historyMaxPageSize);
+        PatientTokenIndex.Cursor cursor = PatientTokenIndex.Cursor.parse(before);
+        long maxMillis = cursor != null ? cursor.issuedAtMillis() : Long.MAX_VALUE;
+        String key = PatientTokenIndex.key(patientId);
+        long sinceMillis = PatientTokenIndex.score(LocalDateTime.now().minusDays(historyWindowDays));
+
+        // Entries tied with the cursor's score are read too, then the ones already served are dropped
+        Mono<Long> tied = cursor != null
+                ? redisTemplate.opsForZSet().count(key, Range.closed((double) maxMillis, (double) maxMillis))
+                : Mono.just(0L);
+
+        return tied
+                .flatMapMany(skip -> redisTemplate.opsForZSet()
+                        .reverseRangeByScoreWithScores(key, Range.closed((double) sinceMillis, (double) maxMillis),
+                                Limit.limit().count((int) (pageSize + skip))))
+                .map(tuple -> PatientTokenIndex.Entry.of(tuple.getValue(), tuple.getScore().longValue()))
+                .collectList()
+                .map(entries -> PatientTokenIndex.after(entries, cursor, pageSize))
+                .flatMap(entries -> Mono.zip(live(entries), archived(entries))
+                        .map(found -> {
+                            Map<String, QueueToken> tokensById = new HashMap<>(found.getT1());
+                            tokensById.putAll(found.getT2());
+                            return TokenHistoryResponse.builder()
+                                    .patientId(patientId)
+                                    .tokens(entries.stream()
+                                            .map(entry -> tokensById.get(entry.tokenId()))
+                                            .filter(Objects::nonNull)
+                                            .map(queueService::mapToResponse)
+                                            .toList())
+                                    .nextCursor(PatientTokenIndex.nextCursor(entries, pageSize))
+                                    .build();
+                        }));
+    }
+
+    private Mono<Map<String, QueueToken>> live(List<PatientTokenIndex.Entry> entries) {
+        return Flux.fromIterable(entries)
+                .filter(entry -> !entry.archived())
+                .flatMap(entry -> tokenStore.findById(entry.tokenId()))
+                .collectMap(QueueToken::getId);
+    }
+
+    private Mono<Map<String, QueueToken>> archived(List<PatientTokenIndex.Entry> entries) {
+        Map<LocalDate, Set<String>> byDay = entries.stream()
+                .filter(PatientTokenIndex.Entry::archived)
+                .collect(Collectors.groupingBy(PatientTokenIndex.Entry::archivedDate,
+                        Collectors.mapping(PatientTokenIndex.Entry::tokenId, Collectors.toSet())));
+        if (byDay.isEmpty()) {
+            return Mono.just(Map.of());
+        }
+        return blocking(() -> {
+            Map<String, QueueToken> found = new HashMap<>();
+            byDay.forEach((date, ids) -> found.putAll(archiveStore.find(date, ids)));
+            return found;
+        });
+    }
+
+    private static int counter(Map<String, String> state, String field) {
+        String value = state.get(field);
+        return value != null ? Integer.parseInt(value) : 0;
+    }
+
+    private static <T> Mono<T> blocking(Callable<T> call) {
+        return Mono.fromCallable(call).subscribeOn(Schedulers.boundedElastic());
+    }
+}
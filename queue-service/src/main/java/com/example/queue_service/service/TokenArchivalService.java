@@ -0,0 +1,156 @@
+package com.example.queue_service.service;
+
+import com.example.queue_service.model.QueueToken;
+import com.example.queue_service.repository.QueueTokenRepository;
+import com.example.queue_service.repository.TokenArchiveStore;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * End-of-day archival of finished queue days. Each day's tokens are streamed in
+ * chunks out of Redis into {@link TokenArchiveStore}. Only once a chunk is durable
+ * in the archive are its hashes and secondary index entries deleted and its patient
+ * history entries repointed at the archive. A day's date index key is kept until
+ * every token listed in it has been archived, so tokens a failed chunk left behind
+ * are picked up again by the next run.
+ *
+ * <p>Every replica schedules the job, but a run only proceeds while it holds a
+ * Redis lock, so exactly one instance archives and appends to the shared archive.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TokenArchivalService {
+
+    private static final String DATE_INDEX_PREFIX = "QueueToken:date:";
+    private static final String LOCK_KEY = "queue:archive:lock";
+    private static final RedisScript<Long> RELEASE_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/lock-release.lua"), Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final QueueTokenRepository tokenRepository;
+    private final TokenArchiveStore archiveStore;
+    private final PatientTokenIndex patientTokenIndex;
+
+    @Value("${queue.archive.after-days:1}")
+    private int afterDays;
+
+    @Value("${queue.archive.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${queue.history.window-days:30}")
+    private int historyWindowDays;
+
+    @Value("${queue.archive.lock-ttl-minutes:60}")
+    private long lockTtlMinutes;
+
+    @Scheduled(cron = "${queue.archive.cron:0 30 0 * * *}")
+    public void archiveFinishedDays() {
+        String owner = UUID.randomUUID().toString();
+        if (!Boolean.TRUE.equals(redisTemplate.opsForValue()
+                .setIfAbsent(LOCK_KEY, owner, Duration.ofMinutes(lockTtlMinutes)))) {
+            log.info("Archival is running on another instance, skipping");
+            return;
+        }
+
+        try {
+            LocalDate cutoff = LocalDate.now().minusDays(afterDays);
+            for (LocalDate date : indexedDates()) {
+                if (!date.isAfter(cutoff)) {
+                    try {
+                        archiveDay(date);
+                    } catch (RuntimeException e) {
+                        log.error("Archival of {} failed, will retry on the next run", date, e);
+                    }
+                }
+            }
+        } finally {
+            redisTemplate.execute(RELEASE_SCRIPT, List.of(LOCK_KEY), owner);
+        }
+    }
+
+    public int archiveDay(LocalDate date) {
+        String indexKey = DATE_INDEX_PREFIX + date;
+        long trimBeforeMillis = PatientTokenIndex.score(LocalDateTime.now().minusDays(historyWindowDays));
+        List<String> chunk = new ArrayList<>(chunkSize);
+        int archived = 0;
+
+        try (Cursor<String> cursor = redisTemplate.opsForSet()
+                .scan(indexKey, ScanOptions.scanOptions().count(chunkSize).build())) {
+            while (cursor.hasNext()) {
+                chunk.add(cursor.next());
+                if (chunk.size() == chunkSize) {
+                    archived += archiveChunk(date, chunk, trimBeforeMillis);
+                    chunk.clear();
+                }
+            }
+        }
+        if (!chunk.isEmpty()) {
+            archived += archiveChunk(date, chunk, trimBeforeMillis);
+        }
+
+        log.info("Archived {} tokens for {}", archived, date);
+        return archived;
+    }
+
+    private int archiveChunk(LocalDate date, List<String> tokenIds, long trimBeforeMillis) {
+        List<QueueToken> tokens = new ArrayList<>(tokenIds.size());
+        tokenRepository.findAllById(tokenIds).forEach(tokens::add);
+
+        // Ids whose hash is already gone have nothing to archive; unlist them so the day can drain
+        if (tokens.size() < tokenIds.size()) {
+            Set<String> found = tokens.stream().map(QueueToken::getId).collect(Collectors.toSet());
+            Object[] missing = tokenIds.stream().filter(id -> !found.contains(id)).toArray();
+            redisTemplate.opsForSet().remove(DATE_INDEX_PREFIX + date, missing);
+        }
+
+        try (TokenArchiveStore.Writer writer = archiveStore.openWriter(date)) {
+            writer.write(tokens);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not archive tokens for " + date, e);
+        }
+
+        patientTokenIndex.markArchived(tokens, trimBeforeMillis);
+        tokenRepository.deleteAllById(tokenIds);
+        return tokens.size();
+    }
+
+    /**
+     * Days that still have tokens in Redis, read from the repository's date index keys.
+     */
+    private TreeSet<LocalDate> indexedDates() {
+        TreeSet<LocalDate> dates = new TreeSet<>();
+        try (Cursor<String> keys = redisTemplate.scan(
+                ScanOptions.scanOptions().match(DATE_INDEX_PREFIX + "*").count(1000).build())) {
+            while (keys.hasNext()) {
+                try {
+                    dates.add(LocalDate.parse(keys.next().substring(DATE_INDEX_PREFIX.length())));
+                } catch (DateTimeParseException e) {
+                    // Not a day index key
+                }
+            }
+        }
+        return dates;
+    }
+}
@@ -0,0 +1,244 @@
+package com.example.queue_service.service;
+
+import com.example.queue_service.model.QueueToken;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.connection.RedisPipelineException;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Issues tokens for one doctor/day with a single server-side script. The script
+ * checks for a WAITING token of the same patient, takes the next number, writes
+ * the token with its repository indexes, enqueues it and records it in the
+ * patient's history, all atomically in one round trip.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TokenIssuer {
+
+    private static final String SEQUENCE_MISSING = "-1";
+    private static final String TOKEN_PREFIX = "QueueToken";
+
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> ISSUE_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/token-issue.lua"), List.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final TokenSequenceService tokenSequenceService;
+
+    public Issued issue(String doctorId, LocalDate date, List<Request> requests) {
+        Prepared prepared = prepare(doctorId, date, requests);
+        return parse(prepared, execute(prepared));
+    }
+
+    /**
+     * Issues several doctor/day groups with one pipelined round trip: the script is
+     * loaded and then evaluated once per group, so the cost follows the number of
+     * groups rather than the number of tokens.
+     *
+     * <p>A group whose reply is missing or an error is retried on its own with the
+     * same token ids. The script reports ids it already wrote as issued, so a group
+     * that did commit before its reply was lost is not turned into duplicates. A
+     * group that fails its retry too comes back {@link Issued#failed() failed}.
+     */
+    public List<Issued> issueAll(List<Group> groups) {
+        List<Prepared> prepared = groups.stream()
+                .map(group -> prepare(group.doctorId(), group.date(), group.requests()))
+                .toList();
+
+        byte[] script = ISSUE_SCRIPT.getScriptAsString().getBytes(StandardCharsets.UTF_8);
+        List<Object> replies;
+        try {
+            replies = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                connection.scriptingCommands().scriptLoad(script);
+                for (Prepared group : prepared) {
+                    connection.scriptingCommands().evalSha(ISSUE_SCRIPT.getSha1(), ReturnType.MULTI,
+                            group.keys().size(), group.keysAndArgs());
+                }
+                return null;
+            });
+        } catch (RedisPipelineException e) {
+            log.warn("Pipelined issuance failed for some of {} groups, retrying those", prepared.size(), e);
+            replies = e.getPipelineResult();
+        } catch (RuntimeException e) {
+            log.warn("Pipelined issuance of {} groups failed, retrying each group", prepared.size(), e);
+            replies = List.of();
+        }
+
+        List<Issued> issued = new ArrayList<>(prepared.size());
+        for (int i = 0; i < prepared.size(); i++) {
+            Object reply = i + 1 < replies.size() ? replies.get(i + 1) : null;
+            try {
+                if (!(reply instanceof List<?> list) || SEQUENCE_MISSING.equals(list.get(0).toString())) {
+                    reply = execute(prepared.get(i));
+                }
+                issued.add(parse(prepared.get(i), (List<?>) reply));
+            } catch (RuntimeException e) {
+                issued.add(Issued.failed(e));
+            }
+        }
+        return issued;
+    }
+
+    Prepared prepare(String doctorId, LocalDate date, List<Request> requests) {
+        List<QueueToken> drafts = requests.stream()
+                .map(request -> QueueToken.builder()
+                        .id(UUID.randomUUID().toString())
+                        .patientId(request.patientId())
+                        .doctorId(doctorId)
+                        .departmentId(request.departmentId())
+                        .date(date)
+                        .issueTime(LocalDateTime.now())
+                        .status(QueueToken.TokenStatus.WAITING)
+                        .appointmentId(request.appointmentId())
+                        .priority(request.priority())
+                        .build())
+                .toList();
+
+        return new Prepared(doctorId, date, drafts, keys(doctorId, date, drafts),
+                arguments(doctorId, date, drafts));
+    }
+
+    /**
+     * Every key the script touches, including the repository's index keys, so none
+     * is reached by a name built inside the script.
+     */
+    private List<String> keys(String doctorId, LocalDate date, List<QueueToken> drafts) {
+        List<String> keys = new ArrayList<>(9 + drafts.size() * 5);
+        keys.add(TokenSequenceService.key(doctorId, date));
+        keys.add(TokenQueueService.waitingKey(doctorId, date));
+        keys.add(TokenQueueService.stateKey(doctorId, date));
+        keys.add(TokenQueueService.activeKey(date));
+        keys.add(TokenQueueService.holdersKey(doctorId, date));
+        keys.add(TOKEN_PREFIX);
+        keys.add(TOKEN_PREFIX + ":doctorId:" + doctorId);
+        keys.add(TOKEN_PREFIX + ":date:" + date);
+        keys.add(TOKEN_PREFIX + ":status:" + QueueToken.TokenStatus.WAITING.name());
+
+        for (QueueToken draft : drafts) {
+            keys.add(TOKEN_PREFIX + ":" + draft.getId());
+            keys.add(TOKEN_PREFIX + ":" + draft.getId() + ":idx");
+            keys.add(TOKEN_PREFIX + ":patientId:" + draft.getPatientId());
+            keys.add(TOKEN_PREFIX + ":departmentId:" + Objects.toString(draft.getDepartmentId(), ""));
+            keys.add(PatientTokenIndex.key(draft.getPatientId()));
+        }
+        return keys;
+    }
+
+    /**
+     * Runs the script for one group, seeding the sequence and retrying once if the
+     * script reports it missing.
+     */
+    List<?> execute(Prepared prepared) {
+        List<?> reply = redisTemplate.execute(ISSUE_SCRIPT, prepared.keys(), prepared.args());
+        if (reply != null && SEQUENCE_MISSING.equals(reply.get(0).toString())) {
+            tokenSequenceService.ensureSeeded(prepared.doctorId(), prepared.date());
+            reply = redisTemplate.execute(ISSUE_SCRIPT, prepared.keys(), prepared.args());
+        }
+        return reply;
+    }
+
+    Issued parse(Prepared prepared, List<?> reply) {
+        if (reply == null || SEQUENCE_MISSING.equals(reply.get(0).toString())) {
+            throw new IllegalStateException("Token sequence unavailable for doctor: " + prepared.doctorId());
+        }
+
+        List<QueueToken> drafts = prepared.drafts();
+        List<Outcome> outcomes = new ArrayList<>(drafts.size());
+        for (int i = 0; i < drafts.size(); i++) {
+            int base = 1 + i * 4;
+            QueueToken draft = drafts.get(i);
+            if ("ISSUED".equals(reply.get(base).toString())) {
+                draft.setTokenNumber(Integer.parseInt(reply.get(base + 2).toString()));
+                outcomes.add(new Outcome(draft, null, Integer.parseInt(reply.get(base + 3).toString())));
+            } else {
+                outcomes.add(new Outcome(null, reply.get(base + 1).toString(), 0));
+            }
+        }
+        return new Issued(Long.parseLong(reply.get(0).toString()), outcomes);
+    }
+
+    private Object[] arguments(String doctorId, LocalDate date, List<QueueToken> drafts) {
+        List<String> args = new ArrayList<>(5 + drafts.size() * 8);
+        args.add(String.valueOf(TokenSequenceService.expiryEpochSeconds(date)));
+        args.add(doctorId);
+        args.add(date.toString());
+        args.add(QueueToken.class.getName());
+        args.add(String.valueOf(TokenQueueService.PRIORITY_WEIGHT));
+
+        for (QueueToken draft : drafts) {
+            args.add(draft.getId());
+            args.add(draft.getPatientId());
+            args.add(draft.getDepartmentId() != null ? draft.getDepartmentId() : "");
+            args.add(draft.getAppointmentId() != null ? draft.getAppointmentId() : "");
+            args.add(draft.getPriority().name());
+            args.add(String.valueOf(draft.getPriority().getValue()));
+            args.add(draft.getIssueTime().toString());
+            args.add(String.valueOf(PatientTokenIndex.score(draft.getIssueTime())));
+        }
+        return args.toArray();
+    }
+
+    public record Request(String patientId, String departmentId, String appointmentId,
+                          QueueToken.TokenPriority priority) {
+    }
+
+    /**
+     * Either the issued token, or the id of the WAITING token that blocked it.
+     */
+    public record Outcome(QueueToken token, String existingTokenId, int position) {
+        public boolean issued() {
+            return token != null;
+        }
+    }
+
+    /**
+     * One group's outcomes, or the error that kept the group from being issued.
+     */
+    public record Issued(long queueVersion, List<Outcome> outcomes, RuntimeException failure) {
+
+        Issued(long queueVersion, List<Outcome> outcomes) {
+            this(queueVersion, outcomes, null);
+        }
+
+        static Issued failed(RuntimeException failure) {
+            return new Issued(0, List.of(), failure);
+        }
+
+        public boolean failed() {
+            return failure != null;
+        }
+    }
+
+    public record Group(String doctorId, LocalDate date, List<Request> requests) {
+    }
+
+    record Prepared(String doctorId, LocalDate date, List<QueueToken> drafts,
+                            List<String> keys, Object[] args) {
+
+        byte[][] keysAndArgs() {
+            byte[][] keysAndArgs = new byte[keys.size() + args.length][];
+            for (int i = 0; i < keys.size(); i++) {
+                keysAndArgs[i] = keys.get(i).getBytes(StandardCharsets.UTF_8);
+            }
+            for (int i = 0; i < args.length; i++) {
+                keysAndArgs[keys.size() + i] = args[i].toString().getBytes(StandardCharsets.UTF_8);
+            }
+            return keysAndArgs;
+        }
+    }
+}
@@ -0,0 +1,308 @@
+package com.example.queue_service.service;
+
+import com.example.queue_service.model.QueueToken;
+import com.example.queue_service.repository.QueueTokenRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Per-doctor/day waiting queue held in a Redis sorted set of token ids.
+ * Members are scored by priority first and token number second, so the head of
+ * the set is always the next patient to call.
+ *
+ * <p>Positions are never stored on tokens. Each state transition bumps a single
+ * version counter in the queue's state hash instead, and readers derive positions
+ * from the sorted-set rank. The same hash carries the counters behind
+ * {@code QueueStatusResponse}, updated by the transition scripts.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TokenQueueService {
+
+    private static final String WAITING_PREFIX = "queue:waiting:";
+    private static final String STATE_PREFIX = "queue:state:";
+    private static final String ACTIVE_PREFIX = "queue:active:";
+    private static final String HOLDERS_PREFIX = "queue:holders:";
+    private static final String TOKEN_PREFIX = "QueueToken:";
+    private static final String STATUS_INDEX_PREFIX = "QueueToken:status:";
+    private static final String VERSION_FIELD = "version";
+    static final long PRIORITY_WEIGHT = 1_000_000L;
+
+    private static final RedisScript<Long> ENQUEUE_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/queue-enqueue.lua"), Long.class);
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> POP_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/queue-pop.lua"), List.class);
+    private static final RedisScript<Long> REMOVE_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/queue-remove.lua"), Long.class);
+    private static final RedisScript<Long> START_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/queue-start.lua"), Long.class);
+    private static final RedisScript<Long> COMPLETE_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/queue-complete.lua"), Long.class);
+    private static final RedisScript<Long> RECONCILE_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/queue-reconcile.lua"), Long.class);
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> TRANSITION_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/token-transition.lua"), List.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final QueueTokenRepository tokenRepository;
+
+    public long enqueue(QueueToken token) {
+        return redisTemplate.execute(ENQUEUE_SCRIPT,
+                List.of(waitingKey(token.getDoctorId(), token.getDate()),
+                        stateKey(token.getDoctorId(), token.getDate()),
+                        activeKey(token.getDate()),
+                        holdersKey(token.getDoctorId(), token.getDate())),
+                token.getId(), String.valueOf(score(token)),
+                String.valueOf(TokenSequenceService.expiryEpochSeconds(token.getDate())),
+                token.getDoctorId(), token.getPatientId());
+    }
+
+    public long remove(QueueToken token) {
+        return redisTemplate.execute(REMOVE_SCRIPT, keys(token.getDoctorId(), token.getDate()),
+                token.getId(), token.getPatientId());
+    }
+
+    public long start(QueueToken token) {
+        return redisTemplate.execute(START_SCRIPT, List.of(stateKey(token.getDoctorId(), token.getDate())),
+                String.valueOf(token.getTokenNumber()));
+    }
+
+    public long complete(QueueToken token) {
+        return redisTemplate.execute(COMPLETE_SCRIPT, keys(token.getDoctorId(), token.getDate()),
+                token.getId(), String.valueOf(token.getTokenNumber()), token.getPatientId());
+    }
+
+    /**
+     * Moves the token to {@code to} if its stored status is one of {@code from},
+     * setting {@code timeField} to {@code at} in the same step. The check and the
+     * write are one script call, so of two concurrent or repeated requests only
+     * one sees the transition applied and runs its side effects.
+     */
+    public Transition transition(QueueToken token, QueueToken.TokenStatus to, String timeField,
+                                 LocalDateTime at, QueueToken.TokenStatus... from) {
+        List<String> keys = new ArrayList<>(3 + from.length);
+        keys.add(TOKEN_PREFIX + token.getId());
+        keys.add(TOKEN_PREFIX + token.getId() + ":idx");
+        keys.add(STATUS_INDEX_PREFIX + to.name());
+        List<String> args = new ArrayList<>(4 + from.length);
+        args.add(token.getId());
+        args.add(to.name());
+        args.add(timeField != null ? timeField : "");
+        args.add(at != null ? at.toString() : "");
+        for (QueueToken.TokenStatus status : from) {
+            keys.add(STATUS_INDEX_PREFIX + status.name());
+            args.add(status.name());
+        }
+
+        List<?> reply = redisTemplate.execute(TRANSITION_SCRIPT, keys, args.toArray());
+        String status = reply.get(1).toString();
+        return new Transition("1".equals(reply.get(0).toString()),
+                status.isEmpty() ? null : QueueToken.TokenStatus.valueOf(status));
+    }
+
+    /**
+     * Atomically takes the head of the queue, so two counters calling at the same
+     * moment can never receive the same token.
+     */
+    public Optional<Popped> pollNext(String doctorId, LocalDate date) {
+        List<String> keys = keys(doctorId, date);
+        List<?> head = redisTemplate.execute(POP_SCRIPT, keys);
+
+        if (isEmpty(head) && !Boolean.TRUE.equals(redisTemplate.hasKey(stateKey(doctorId, date)))
+                && rebuild(doctorId, date) > 0) {
+            head = redisTemplate.execute(POP_SCRIPT, keys);
+        }
+
+        if (isEmpty(head)) {
+            return Optional.empty();
+        }
+        return Optional.of(new Popped(head.get(0).toString(), Long.parseLong(head.get(1).toString())));
+    }
+
+    /**
+     * Zero-based rank of a waiting token in its queue, or empty if it is no longer queued.
+     */
+    public Optional<Long> rank(QueueToken token) {
+        return Optional.ofNullable(redisTemplate.opsForZSet()
+                .rank(waitingKey(token.getDoctorId(), token.getDate()), token.getId()));
+    }
+
+    /**
+     * Zero-based ranks of several tokens of one queue in a single pipelined round
+     * trip; tokens no longer queued map to {@code null}.
+     */
+    public List<Long> ranks(String doctorId, LocalDate date, List<String> tokenIds) {
+        String key = waitingKey(doctorId, date);
+        List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (String tokenId : tokenIds) {
+                connection.zSetCommands().zRank(key.getBytes(StandardCharsets.UTF_8),
+                        tokenId.getBytes(StandardCharsets.UTF_8));
+            }
+            return null;
+        });
+        return results.stream().map(rank -> rank != null ? ((Number) rank).longValue() : null).toList();
+    }
+
+    public long version(String doctorId, LocalDate date) {
+        Object version = redisTemplate.opsForHash().get(stateKey(doctorId, date), VERSION_FIELD);
+        return version != null ? Long.parseLong(version.toString()) : 0L;
+    }
+
+    /**
+     * The queue's counters (waiting, current, lastServed, version) in one HGETALL.
+     */
+    public Map<Object, Object> state(String doctorId, LocalDate date) {
+        return redisTemplate.opsForHash().entries(stateKey(doctorId, date));
+    }
+
+    /**
+     * Token ids currently in the queue's waiting sorted set.
+     */
+    public Set<String> waitingMembers(String doctorId, LocalDate date) {
+        Set<String> members = redisTemplate.opsForZSet().range(waitingKey(doctorId, date), 0, -1);
+        return members != null ? members : Set.of();
+    }
+
+    /**
+     * Re-adds {@code missing} WAITING tokens to the sorted set, drops the
+     * {@code stale} members that are no longer WAITING and overwrites the
+     * counters, with {@code waiting} taken from the repaired set. Nothing is
+     * written if a queue operation happened after {@code expectedVersion} was
+     * read, and each token's status is re-checked inside the script.
+     */
+    public boolean reconcile(String doctorId, LocalDate date, long expectedVersion,
+                             List<QueueToken> missing, Collection<String> stale, int current, int lastServed) {
+        List<String> keys = new ArrayList<>(3 + missing.size() + stale.size());
+        keys.add(stateKey(doctorId, date));
+        keys.add(waitingKey(doctorId, date));
+        keys.add(holdersKey(doctorId, date));
+        List<String> args = new ArrayList<>(6 + missing.size() * 3 + stale.size());
+        args.add(String.valueOf(expectedVersion));
+        args.add(String.valueOf(current));
+        args.add(String.valueOf(lastServed));
+        args.add(String.valueOf(TokenSequenceService.expiryEpochSeconds(date)));
+        args.add(QueueToken.TokenStatus.WAITING.name());
+        args.add(String.valueOf(missing.size()));
+        for (QueueToken token : missing) {
+            keys.add(TOKEN_PREFIX + token.getId());
+            args.add(token.getId());
+            args.add(String.valueOf(score(token)));
+            args.add(token.getPatientId());
+        }
+        for (String tokenId : stale) {
+            keys.add(TOKEN_PREFIX + tokenId);
+            args.add(tokenId);
+        }
+
+        Long applied = redisTemplate.execute(RECONCILE_SCRIPT, keys, args.toArray());
+        return applied != null && applied == 1L;
+    }
+
+    /**
+     * The {@code waiting} counter of several doctors' queues for one day, in one
+     * pipelined round trip.
+     */
+    public Map<String, Long> waitingCounts(LocalDate date, Collection<String> doctorIds) {
+        List<String> doctors = List.copyOf(doctorIds);
+        List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (String doctorId : doctors) {
+                connection.hashCommands().hGet(stateKey(doctorId, date).getBytes(StandardCharsets.UTF_8),
+                        "waiting".getBytes(StandardCharsets.UTF_8));
+            }
+            return null;
+        });
+
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (int i = 0; i < doctors.size(); i++) {
+            Object waiting = results.get(i);
+            counts.put(doctors.get(i), waiting != null ? Long.parseLong(waiting.toString()) : 0L);
+        }
+        return counts;
+    }
+
+    public Set<String> activeDoctors(LocalDate date) {
+        Set<String> doctors = redisTemplate.opsForSet().members(activeKey(date));
+        return doctors != null ? doctors : Set.of();
+    }
+
+    static String waitingKey(String doctorId, LocalDate date) {
+        return WAITING_PREFIX + doctorId + ":" + date;
+    }
+
+    static String stateKey(String doctorId, LocalDate date) {
+        return STATE_PREFIX + doctorId + ":" + date;
+    }
+
+    static String activeKey(LocalDate date) {
+        return ACTIVE_PREFIX + date;
+    }
+
+    static String holdersKey(String doctorId, LocalDate date) {
+        return HOLDERS_PREFIX + doctorId + ":" + date;
+    }
+
+    static List<String> keys(String doctorId, LocalDate date) {
+        return List.of(waitingKey(doctorId, date), stateKey(doctorId, date), holdersKey(doctorId, date));
+    }
+
+    static long score(QueueToken token) {
+        QueueToken.TokenPriority priority = token.getPriority() != null
+                ? token.getPriority()
+                : QueueToken.TokenPriority.NORMAL;
+        return priority.getValue() * PRIORITY_WEIGHT + token.getTokenNumber();
+    }
+
+    private static boolean isEmpty(List<?> head) {
+        return head == null || head.isEmpty();
+    }
+
+    /**
+     * Repopulates the queue from WAITING tokens after a Redis flush dropped the
+     * sorted set. Only runs when the state hash is gone too; a queue that simply
+     * ran empty is never rebuilt, since a token popped a moment ago may not have
+     * been saved as CALLED yet.
+     */
+    private int rebuild(String doctorId, LocalDate date) {
+        List<QueueToken> waiting = tokenRepository.findByDoctorIdAndDateAndStatus(
+                doctorId, date, QueueToken.TokenStatus.WAITING
+        );
+
+        waiting.forEach(this::enqueue);
+
+        if (!waiting.isEmpty()) {
+            log.warn("Rebuilt waiting queue for doctor: {} on {} with {} tokens",
+                    doctorId, date, waiting.size());
+        }
+        return waiting.size();
+    }
+
+    public record Popped(String tokenId, long version) {
+    }
+
+    /**
+     * Whether a transition was applied, with the status the token had: the one it
+     * left when applied, the one that blocked it otherwise ({@code null} if the
+     * token no longer exists).
+     */
+    public record Transition(boolean applied, QueueToken.TokenStatus previous) {
+    }
+}
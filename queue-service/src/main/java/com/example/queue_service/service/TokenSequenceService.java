@@ -0,0 +1,68 @@
+package com.example.queue_service.service;
+
+import com.example.queue_service.model.QueueToken;
+import com.example.queue_service.repository.QueueTokenRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Owns the atomic Redis counter that token numbers are allocated from, one per
+ * doctor and day. Numbers themselves are taken inside the issuance script; this
+ * service only seeds the counter when it has gone missing (first token of the
+ * day or a flushed Redis), from the highest number already issued. The counter
+ * expires at the end of its day, or an hour from now for a past day.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TokenSequenceService {
+
+    private static final String KEY_PREFIX = "queue:seq:";
+    private static final Duration MIN_TTL = Duration.ofHours(1);
+
+    private static final RedisScript<Long> SEED_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/sequence-seed.lua"), Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final QueueTokenRepository tokenRepository;
+
+    public void ensureSeeded(String doctorId, LocalDate date) {
+        int floor = highestIssuedNumber(doctorId, date);
+        redisTemplate.execute(SEED_SCRIPT, List.of(key(doctorId, date)),
+                String.valueOf(floor), String.valueOf(expiryEpochSeconds(date)));
+        log.info("Seeded token sequence for doctor: {} on {} from {}", doctorId, date, floor);
+    }
+
+    static String key(String doctorId, LocalDate date) {
+        return KEY_PREFIX + doctorId + ":" + date;
+    }
+
+    /**
+     * Epoch second at which a doctor/day key expires: the end of its day, but never
+     * sooner than {@link #MIN_TTL} from now. Without the floor, a key written for a
+     * past date would expire the moment it is created.
+     */
+    static long expiryEpochSeconds(LocalDate date) {
+        long endOfDay = date.plusDays(1).atStartOfDay(ZoneId.systemDefault()).toEpochSecond();
+        return Math.max(endOfDay, Instant.now().plus(MIN_TTL).getEpochSecond());
+    }
+
+    private int highestIssuedNumber(String doctorId, LocalDate date) {
+        return tokenRepository.findByDoctorIdAndDateOrderByTokenNumberAsc(doctorId, date).stream()
+                .map(QueueToken::getTokenNumber)
+                .filter(Objects::nonNull)
+                .max(Integer::compareTo)
+                .orElse(0);
+    }
+}
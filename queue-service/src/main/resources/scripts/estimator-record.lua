@@ -0,0 +1,84 @@
+-- KEYS[1..n] = estimator hashes to update (doctor first, then department)
+-- ARGV[1] = observed consultation minutes
+-- ARGV[2] = EWMA smoothing factor
+-- Folds one observation into each hash: an exponentially weighted mean plus
+-- P-square sketches (Jain & Chlamtac) for the median and 90th percentile.
+-- Every hash stays at a fixed number of fields however many samples it has seen.
+local x = tonumber(ARGV[1])
+local alpha = tonumber(ARGV[2])
+
+local function field(tag, name, i)
+    return tag .. '.' .. name .. i
+end
+
+local function sketch(key, tag, p, count)
+    local q, n = {}, {}
+    if count <= 5 then
+        redis.call('HSET', key, field(tag, 'q', count), tostring(x))
+        if count == 5 then
+            for i = 1, 5 do
+                q[i] = tonumber(redis.call('HGET', key, field(tag, 'q', i)))
+            end
+            table.sort(q)
+            for i = 1, 5 do
+                redis.call('HSET', key, field(tag, 'q', i), tostring(q[i]), field(tag, 'n', i), i)
+            end
+        end
+        return
+    end
+
+    for i = 1, 5 do
+        q[i] = tonumber(redis.call('HGET', key, field(tag, 'q', i)))
+        n[i] = tonumber(redis.call('HGET', key, field(tag, 'n', i)))
+    end
+
+    local k
+    if x < q[1] then
+        q[1] = x
+        k = 1
+    elseif x >= q[5] then
+        q[5] = x
+        k = 4
+    else
+        k = 1
+        while x >= q[k + 1] do
+            k = k + 1
+        end
+    end
+    for i = k + 1, 5 do
+        n[i] = n[i] + 1
+    end
+
+    local dn = { 0, p / 2, p, (1 + p) / 2, 1 }
+    for i = 2, 4 do
+        local d = 1 + (count - 1) * dn[i] - n[i]
+        if (d >= 1 and n[i + 1] - n[i] > 1) or (d <= -1 and n[i - 1] - n[i] < -1) then
+            local s = d >= 0 and 1 or -1
+            local qp = q[i] + s / (n[i + 1] - n[i - 1]) *
+                    ((n[i] - n[i - 1] + s) * (q[i + 1] - q[i]) / (n[i + 1] - n[i]) +
+                     (n[i + 1] - n[i] - s) * (q[i] - q[i - 1]) / (n[i] - n[i - 1]))
+            if q[i - 1] < qp and qp < q[i + 1] then
+                q[i] = qp
+            else
+                q[i] = q[i] + s * (q[i + s] - q[i]) / (n[i + s] - n[i])
+            end
+            n[i] = n[i] + s
+        end
+    end
+
+    for i = 1, 5 do
+        redis.call('HSET', key, field(tag, 'q', i), tostring(q[i]), field(tag, 'n', i), n[i])
+    end
+end
+
+for _, key in ipairs(KEYS) do
+    local count = redis.call('HINCRBY', key, 'samples', 1)
+    local ewma = tonumber(redis.call('HGET', key, 'ewma') or tostring(x))
+    if count > 1 then
+        ewma = alpha * x + (1 - alpha) * ewma
+    end
+    redis.call('HSET', key, 'ewma', tostring(ewma))
+    sketch(key, 'p50', 0.5, count)
+    sketch(key, 'p90', 0.9, count)
+end
+return #KEYS
@@ -0,0 +1,9 @@
+-- KEYS[1] = lock key
+-- ARGV[1] = owner token the lock was taken with
+-- Deletes the lock only if this caller still owns it, so a run that outlived its
+-- lock never releases the next owner's.
+-- Returns 1 when released, 0 otherwise.
+if redis.call('GET', KEYS[1]) == ARGV[1] then
+    return redis.call('DEL', KEYS[1])
+end
+return 0
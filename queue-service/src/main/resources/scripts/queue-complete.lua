@@ -0,0 +1,24 @@
+-- KEYS[1] = waiting sorted set for a doctor/day
+-- KEYS[2] = queue state hash for the same doctor/day
+-- KEYS[3] = hash of patient id -> WAITING token id for the same doctor/day, and
+--           'token:' .. token id -> patient id
+-- ARGV[1] = token id
+-- ARGV[2] = token number
+-- ARGV[3] = patient id
+-- Removes the token if it never left the queue, clears it as the current token,
+-- raises the last served number and bumps the queue version.
+-- Returns the new queue version.
+local number = tonumber(ARGV[2])
+redis.call('ZREM', KEYS[1], ARGV[1])
+redis.call('HDEL', KEYS[3], 'token:' .. ARGV[1])
+if redis.call('HGET', KEYS[3], ARGV[3]) == ARGV[1] then
+    redis.call('HDEL', KEYS[3], ARGV[3])
+end
+redis.call('HSET', KEYS[2], 'waiting', redis.call('ZCARD', KEYS[1]))
+if tonumber(redis.call('HGET', KEYS[2], 'current') or '0') == number then
+    redis.call('HSET', KEYS[2], 'current', 0)
+end
+if tonumber(redis.call('HGET', KEYS[2], 'lastServed') or '0') < number then
+    redis.call('HSET', KEYS[2], 'lastServed', number)
+end
+return redis.call('HINCRBY', KEYS[2], 'version', 1)
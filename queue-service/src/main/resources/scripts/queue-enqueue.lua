@@ -0,0 +1,21 @@
+-- KEYS[1] = waiting sorted set for a doctor/day
+-- KEYS[2] = queue state hash for the same doctor/day
+-- KEYS[3] = set of doctors with an active queue on that day
+-- KEYS[4] = hash of patient id -> WAITING token id for the same doctor/day, and
+--           'token:' .. token id -> patient id
+-- ARGV[1] = token id
+-- ARGV[2] = queue score (priority, then token number)
+-- ARGV[3] = epoch second at which the keys expire (end of the day, at least an hour ahead)
+-- ARGV[4] = doctor id
+-- ARGV[5] = patient id
+-- Returns the new queue version.
+redis.call('ZADD', KEYS[1], 'NX', ARGV[2], ARGV[1])
+redis.call('EXPIREAT', KEYS[1], ARGV[3])
+redis.call('HSET', KEYS[2], 'waiting', redis.call('ZCARD', KEYS[1]))
+local version = redis.call('HINCRBY', KEYS[2], 'version', 1)
+redis.call('EXPIREAT', KEYS[2], ARGV[3])
+redis.call('SADD', KEYS[3], ARGV[4])
+redis.call('EXPIREAT', KEYS[3], ARGV[3])
+redis.call('HSET', KEYS[4], ARGV[5], ARGV[1], 'token:' .. ARGV[1], ARGV[5])
+redis.call('EXPIREAT', KEYS[4], ARGV[3])
+return version
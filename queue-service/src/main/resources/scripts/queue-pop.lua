@@ -0,0 +1,21 @@
+-- KEYS[1] = waiting sorted set for a doctor/day
+-- KEYS[2] = queue state hash for the same doctor/day
+-- KEYS[3] = hash of patient id -> WAITING token id for the same doctor/day, and
+--           'token:' .. token id -> patient id
+-- Pops the head of the queue, releases its patient's waiting slot and bumps the
+-- queue version.
+-- Returns {token id, new version}, or an empty list when the queue is empty.
+local head = redis.call('ZPOPMIN', KEYS[1])
+if #head == 0 then
+    return {}
+end
+local patientId = redis.call('HGET', KEYS[3], 'token:' .. head[1])
+if patientId then
+    redis.call('HDEL', KEYS[3], 'token:' .. head[1])
+    if redis.call('HGET', KEYS[3], patientId) == head[1] then
+        redis.call('HDEL', KEYS[3], patientId)
+    end
+end
+redis.call('HSET', KEYS[2], 'waiting', redis.call('ZCARD', KEYS[1]))
+local version = redis.call('HINCRBY', KEYS[2], 'version', 1)
+return {head[1], tostring(version)}
@@ -0,0 +1,54 @@
+-- KEYS[1] = queue state hash for a doctor/day
+-- KEYS[2] = waiting sorted set for the same doctor/day
+-- KEYS[3] = hash of patient id -> WAITING token id for the same doctor/day, and
+--           'token:' .. token id -> patient id
+-- KEYS[4..] = token hashes, first of the ARGV[6] tokens to add, then of the tokens to remove
+-- ARGV[1] = version the repair was computed against
+-- ARGV[2] = current token number
+-- ARGV[3] = last served token number
+-- ARGV[4] = epoch second at which the keys expire (end of the day, at least an hour ahead)
+-- ARGV[5] = WAITING status name
+-- ARGV[6] = number of tokens to add
+-- ARGV[7..] = token id, queue score, patient id for each token to add, then token
+--             id for each token to remove
+-- Re-adds WAITING tokens missing from the sorted set and drops members that are
+-- no longer WAITING, re-checking each token's status, then derives the waiting
+-- counter from the set. Only applies if no queue operation happened since the
+-- repair was computed; bumps the version when the set changed.
+-- Returns 1 when applied, 0 when the queue moved on in the meantime.
+if tonumber(redis.call('HGET', KEYS[1], 'version') or '0') ~= tonumber(ARGV[1]) then
+    return 0
+end
+
+local adds = tonumber(ARGV[6])
+local changed = 0
+for i = 1, adds do
+    local id, score, patientId = ARGV[4 + i * 3], ARGV[5 + i * 3], ARGV[6 + i * 3]
+    if redis.call('HGET', KEYS[3 + i], 'status') == ARGV[5] then
+        changed = changed + redis.call('ZADD', KEYS[2], 'NX', score, id)
+        redis.call('HSET', KEYS[3], patientId, id, 'token:' .. id, patientId)
+    end
+end
+
+for i = 4 + adds, #KEYS do
+    local id = ARGV[7 + adds * 3 + (i - 4 - adds)]
+    if redis.call('HGET', KEYS[i], 'status') ~= ARGV[5] then
+        changed = changed + redis.call('ZREM', KEYS[2], id)
+        local patientId = redis.call('HGET', KEYS[3], 'token:' .. id)
+        if patientId then
+            redis.call('HDEL', KEYS[3], 'token:' .. id)
+            if redis.call('HGET', KEYS[3], patientId) == id then
+                redis.call('HDEL', KEYS[3], patientId)
+            end
+        end
+    end
+end
+
+redis.call('HSET', KEYS[1], 'waiting', redis.call('ZCARD', KEYS[2]), 'current', ARGV[2], 'lastServed', ARGV[3])
+if changed > 0 then
+    redis.call('HINCRBY', KEYS[1], 'version', 1)
+end
+for i = 1, 3 do
+    redis.call('EXPIREAT', KEYS[i], ARGV[4])
+end
+return 1
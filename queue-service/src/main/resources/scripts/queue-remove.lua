@@ -0,0 +1,16 @@
+-- KEYS[1] = waiting sorted set for a doctor/day
+-- KEYS[2] = queue state hash for the same doctor/day
+-- KEYS[3] = hash of patient id -> WAITING token id for the same doctor/day, and
+--           'token:' .. token id -> patient id
+-- ARGV[1] = token id
+-- ARGV[2] = patient id
+-- Removes the token if it is still queued, releases the patient's waiting slot
+-- and bumps the queue version.
+-- Returns the new queue version.
+redis.call('ZREM', KEYS[1], ARGV[1])
+redis.call('HDEL', KEYS[3], 'token:' .. ARGV[1])
+if redis.call('HGET', KEYS[3], ARGV[2]) == ARGV[1] then
+    redis.call('HDEL', KEYS[3], ARGV[2])
+end
+redis.call('HSET', KEYS[2], 'waiting', redis.call('ZCARD', KEYS[1]))
+return redis.call('HINCRBY', KEYS[2], 'version', 1)
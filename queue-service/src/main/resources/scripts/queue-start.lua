@@ -0,0 +1,6 @@
+-- KEYS[1] = queue state hash for a doctor/day
+-- ARGV[1] = token number now in consultation
+-- Marks the token as the current one and bumps the queue version.
+-- Returns the new queue version.
+redis.call('HSET', KEYS[1], 'current', ARGV[1])
+return redis.call('HINCRBY', KEYS[1], 'version', 1)
@@ -0,0 +1,11 @@
+-- KEYS[1] = token sequence key for a doctor/day
+-- ARGV[1] = highest token number already issued for that doctor/day
+-- ARGV[2] = epoch second at which the keys expire (end of the day, at least an hour ahead)
+-- Raises the counter to ARGV[1] unless another caller already seeded it higher.
+-- Returns the current counter value.
+local current = tonumber(redis.call('GET', KEYS[1]) or '-1')
+if current < tonumber(ARGV[1]) then
+    redis.call('SET', KEYS[1], ARGV[1])
+end
+redis.call('EXPIREAT', KEYS[1], ARGV[2])
+return tonumber(redis.call('GET', KEYS[1]))
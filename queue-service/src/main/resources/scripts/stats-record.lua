@@ -0,0 +1,52 @@
+-- KEYS[1] = repository set of all stats ids
+-- KEYS[2] = doctor/day stats hash
+-- KEYS[3] = department/day stats hash (optional)
+-- ARGV[1] = transition: ISSUED, CALLED, STARTED, COMPLETED or CANCELED
+-- ARGV[2] = amount: tokens issued, minutes waited, or 1/0 whether a cancelled token was still waiting
+-- ARGV[3] = token number (STARTED, COMPLETED)
+-- ARGV[4] = date
+-- ARGV[5] = doctor id
+-- ARGV[6] = department id
+-- Applies one transition to every rollup passed in. Each hash is laid out like a
+-- Spring Data QueueStats entity so the repository can read it back directly.
+-- Returns the doctor's total token count.
+local scopes = {'DOCTOR', 'DEPARTMENT'}
+local owners = {ARGV[5], ARGV[6]}
+local amount = tonumber(ARGV[2])
+
+for i = 1, #KEYS - 1 do
+    local key = KEYS[i + 1]
+    if redis.call('EXISTS', key) == 0 then
+        redis.call('HSET', key, 'id', string.sub(key, #'QueueStats:' + 1), 'scope', scopes[i],
+            'date', ARGV[4], 'totalTokens', 0, 'waitingTokens', 0, 'completedTokens', 0,
+            'canceledTokens', 0, 'calledTokens', 0, 'totalWaitMinutes', 0, 'averageWaitMinutes', 0)
+        redis.call('HSET', key, i == 1 and 'doctorId' or 'departmentId', owners[i])
+        redis.call('SADD', KEYS[1], string.sub(key, #'QueueStats:' + 1))
+    end
+
+    if ARGV[1] == 'ISSUED' then
+        redis.call('HINCRBY', key, 'totalTokens', amount)
+        redis.call('HINCRBY', key, 'waitingTokens', amount)
+    elseif ARGV[1] == 'CALLED' then
+        redis.call('HINCRBY', key, 'waitingTokens', -1)
+        local called = redis.call('HINCRBY', key, 'calledTokens', 1)
+        local waited = tonumber(redis.call('HINCRBYFLOAT', key, 'totalWaitMinutes', amount))
+        redis.call('HSET', key, 'averageWaitMinutes', tostring(waited / called))
+    elseif ARGV[1] == 'STARTED' then
+        if i == 1 then
+            redis.call('HSET', key, 'currentTokenNumber', ARGV[3])
+        end
+    elseif ARGV[1] == 'COMPLETED' then
+        redis.call('HINCRBY', key, 'completedTokens', 1)
+        if i == 1 and redis.call('HGET', key, 'currentTokenNumber') == ARGV[3] then
+            redis.call('HSET', key, 'currentTokenNumber', 0)
+        end
+    elseif ARGV[1] == 'CANCELED' then
+        if amount > 0 then
+            redis.call('HINCRBY', key, 'waitingTokens', -amount)
+        end
+        redis.call('HINCRBY', key, 'canceledTokens', 1)
+    end
+end
+
+return tonumber(redis.call('HGET', KEYS[2], 'totalTokens'))
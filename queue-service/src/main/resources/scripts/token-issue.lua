@@ -0,0 +1,128 @@
+-- Issues one or more tokens for a single doctor/day in one atomic step.
+--
+-- KEYS[1] = token sequence for the doctor/day
+-- KEYS[2] = waiting sorted set for the doctor/day
+-- KEYS[3] = queue state hash for the doctor/day
+-- KEYS[4] = set of doctors with an active queue on that day
+-- KEYS[5] = hash of patient id -> WAITING token id for the doctor/day
+-- KEYS[6] = repository set of all token ids
+-- KEYS[7] = repository doctorId index set for the doctor
+-- KEYS[8] = repository date index set for the day
+-- KEYS[9] = repository status index set for WAITING
+-- KEYS[10..] = 5 keys per token: token hash, its :idx set, patientId index set,
+--              departmentId index set (unused without a department), patient history
+-- ARGV[1] = epoch second at which the keys expire (end of the day, at least an hour ahead)
+-- ARGV[2] = doctor id
+-- ARGV[3] = date (ISO-8601)
+-- ARGV[4] = QueueToken type hint stored in _class
+-- ARGV[5] = priority weight used in queue scores
+-- ARGV[6..] = 8 fields per token: token id, patient id, department id (or ''),
+--             appointment id (or ''), priority name, priority value,
+--             issue time (ISO-8601), issue time (epoch millis)
+--
+-- Each token hash and its secondary index entries are written in the same layout
+-- the QueueToken repository uses, so the repository reads them back unchanged.
+-- Every key is declared, but the repository keys are shared by all doctors, so
+-- the script needs a single Redis node (or primary) rather than a cluster.
+--
+-- A token id that already exists was written by an earlier attempt of the same
+-- request, e.g. a pipeline whose reply was lost, and is reported as ISSUED again
+-- with its stored number, so retrying a request never turns it into a duplicate.
+--
+-- Returns {'-1'} when the sequence must be seeded first. Otherwise returns the
+-- queue version followed by 4 entries per token: outcome (ISSUED or DUPLICATE),
+-- token id (the existing one for duplicates), token number and queue position.
+local FIELDS = 8
+local HEADER = 5
+local TOKEN_KEYS = 5
+local FIXED_KEYS = 9
+
+if redis.call('EXISTS', KEYS[1]) == 0 then
+    return { '-1' }
+end
+
+local expireAt, doctorId, date, typeHint = ARGV[1], ARGV[2], ARGV[3], ARGV[4]
+local weight = tonumber(ARGV[5])
+local count = (#ARGV - HEADER) / FIELDS
+
+local function index(idxKey, indexKey, tokenId)
+    redis.call('SADD', indexKey, tokenId)
+    redis.call('SADD', idxKey, indexKey)
+end
+
+local results = {}
+local issued = 0
+
+for i = 0, count - 1 do
+    local base = HEADER + i * FIELDS
+    local keyBase = FIXED_KEYS + i * TOKEN_KEYS
+    local tokenId = ARGV[base + 1]
+    local patientId = ARGV[base + 2]
+    local departmentId = ARGV[base + 3]
+    local appointmentId = ARGV[base + 4]
+    local priorityName = ARGV[base + 5]
+    local priorityValue = tonumber(ARGV[base + 6])
+    local issueTime = ARGV[base + 7]
+    local issueMillis = ARGV[base + 8]
+
+    local existing = redis.call('HGET', KEYS[keyBase + 1], 'tokenNumber')
+    local holder = redis.call('HGET', KEYS[5], patientId)
+    if existing then
+        local rank = redis.call('ZRANK', KEYS[2], tokenId)
+        table.insert(results, 'ISSUED')
+        table.insert(results, tokenId)
+        table.insert(results, existing)
+        table.insert(results, tostring(rank and rank + 1 or 0))
+    elseif holder then
+        table.insert(results, 'DUPLICATE')
+        table.insert(results, holder)
+        table.insert(results, '0')
+        table.insert(results, '0')
+    else
+        local number = redis.call('INCR', KEYS[1])
+        local key = KEYS[keyBase + 1]
+        local idx = KEYS[keyBase + 2]
+
+        local hash = { '_class', typeHint, 'id', tokenId, 'patientId', patientId, 'doctorId', doctorId,
+                       'tokenNumber', tostring(number), 'date', date, 'issueTime', issueTime,
+                       'status', 'WAITING', 'priority', priorityName }
+        if departmentId ~= '' then
+            table.insert(hash, 'departmentId')
+            table.insert(hash, departmentId)
+            index(idx, KEYS[keyBase + 4], tokenId)
+        end
+        if appointmentId ~= '' then
+            table.insert(hash, 'appointmentId')
+            table.insert(hash, appointmentId)
+        end
+        redis.call('HSET', key, unpack(hash))
+        redis.call('SADD', KEYS[6], tokenId)
+        index(idx, KEYS[keyBase + 3], tokenId)
+        index(idx, KEYS[7], tokenId)
+        index(idx, KEYS[8], tokenId)
+        index(idx, KEYS[9], tokenId)
+
+        redis.call('HSET', KEYS[5], patientId, tokenId, 'token:' .. tokenId, patientId)
+        redis.call('ZADD', KEYS[2], priorityValue * weight + number, tokenId)
+        redis.call('ZADD', KEYS[keyBase + 5], issueMillis, tokenId)
+
+        table.insert(results, 'ISSUED')
+        table.insert(results, tokenId)
+        table.insert(results, tostring(number))
+        table.insert(results, tostring(redis.call('ZRANK', KEYS[2], tokenId) + 1))
+        issued = issued + 1
+    end
+end
+
+local version = tonumber(redis.call('HGET', KEYS[3], 'version') or '0')
+if issued > 0 then
+    redis.call('HSET', KEYS[3], 'waiting', redis.call('ZCARD', KEYS[2]))
+    version = redis.call('HINCRBY', KEYS[3], 'version', 1)
+    redis.call('SADD', KEYS[4], doctorId)
+    for k = 2, 5 do
+        redis.call('EXPIREAT', KEYS[k], expireAt)
+    end
+end
+
+table.insert(results, 1, tostring(version))
+return results
@@ -0,0 +1,37 @@
+-- Moves a token to a new status only if it is currently in one of the allowed
+-- statuses, so a repeated or racing request can never apply the same transition
+-- twice or leave a finished token.
+--
+-- KEYS[1] = token hash
+-- KEYS[2] = set of index keys the token is listed in (the repository's :idx key)
+-- KEYS[3] = status index set of the target status
+-- KEYS[4..] = status index sets of the allowed current statuses, in ARGV[5..] order
+-- ARGV[1] = token id
+-- ARGV[2] = target status
+-- ARGV[3] = timestamp field to set with the transition (or '')
+-- ARGV[4] = timestamp value (ISO-8601)
+-- ARGV[5..] = allowed current statuses
+--
+-- Returns {1, previous status} when applied, {0, current status} when rejected;
+-- the status is '' for a token that does not exist.
+local status = redis.call('HGET', KEYS[1], 'status')
+if not status then
+    return { 0, '' }
+end
+
+for i = 5, #ARGV do
+    if status == ARGV[i] then
+        local from = KEYS[i - 1]
+        redis.call('HSET', KEYS[1], 'status', ARGV[2])
+        if ARGV[3] ~= '' then
+            redis.call('HSET', KEYS[1], ARGV[3], ARGV[4])
+        end
+        redis.call('SREM', from, ARGV[1])
+        redis.call('SADD', KEYS[3], ARGV[1])
+        redis.call('SREM', KEYS[2], from)
+        redis.call('SADD', KEYS[2], KEYS[3])
+        return { 1, status }
+    end
+end
+
+return { 0, status }
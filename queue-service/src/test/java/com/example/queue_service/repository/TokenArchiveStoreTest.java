@@ -0,0 +1,78 @@
+package com.example.queue_service.repository;
+
+import com.example.queue_service.model.QueueToken;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenArchiveStoreTest {
+
+    private static final LocalDate DATE = LocalDate.of(2026, 3, 2);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void findsTokensAcrossArchivedChunks() throws IOException {
+        TokenArchiveStore store = new TokenArchiveStore(directory.toString(), 7, JsonMapper.builder().build());
+        try (TokenArchiveStore.Writer writer = store.openWriter(DATE)) {
+            writer.write(List.of(token("a", 1), token("b", 2), token("c", 3)));
+        }
+        try (TokenArchiveStore.Writer writer = store.openWriter(DATE)) {
+            writer.write(List.of(token("d", 4), token("e", 5)));
+        }
+
+        Map<String, QueueToken> found = store.find(DATE, Set.of("b", "c", "e", "missing"));
+
+        assertThat(found).containsOnlyKeys("b", "c", "e");
+        assertThat(found.get("c").getTokenNumber()).isEqualTo(3);
+        assertThat(found.get("e").getTokenNumber()).isEqualTo(5);
+        assertThat(found.get("e").getIssueTime()).isEqualTo(LocalDateTime.of(2026, 3, 2, 9, 5));
+    }
+
+    @Test
+    void repeatedChunkResolvesToFirstCopy() throws IOException {
+        TokenArchiveStore store = new TokenArchiveStore(directory.toString(), 7, JsonMapper.builder().build());
+        try (TokenArchiveStore.Writer writer = store.openWriter(DATE)) {
+            writer.write(List.of(token("a", 1)));
+        }
+        assertThat(store.find(DATE, Set.of("a"))).containsKey("a");
+
+        // A run retried after a crash appends the same tokens again
+        try (TokenArchiveStore.Writer writer = store.openWriter(DATE)) {
+            writer.write(List.of(token("a", 1), token("b", 2)));
+        }
+
+        assertThat(store.find(DATE, Set.of("a", "b"))).containsOnlyKeys("a", "b");
+    }
+
+    @Test
+    void unknownDayIsEmpty() {
+        TokenArchiveStore store = new TokenArchiveStore(directory.toString(), 7, JsonMapper.builder().build());
+
+        assertThat(store.find(DATE, Set.of("a"))).isEmpty();
+    }
+
+    private static QueueToken token(String id, int number) {
+        return QueueToken.builder()
+                .id(id)
+                .patientId("p-" + id)
+                .doctorId("doc-1")
+                .date(DATE)
+                .tokenNumber(number)
+                .issueTime(LocalDateTime.of(2026, 3, 2, 9, number))
+                .status(QueueToken.TokenStatus.COMPLETED)
+                .priority(QueueToken.TokenPriority.NORMAL)
+                .build();
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.queue_service.service;
+
+import com.example.queue_service.model.QueueToken;
+import com.example.queue_service.repository.QueueTokenRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PatientTokenIndexTest extends EmbeddedRedisTest {
+
+    private static final LocalDateTime ISSUED = LocalDateTime.of(2026, 3, 2, 9, 0);
+
+    private final QueueTokenRepository tokenRepository = mock(QueueTokenRepository.class);
+    private final PatientTokenIndex index = new PatientTokenIndex(redisTemplate, tokenRepository);
+
+    @Test
+    void pagesThroughTokensIssuedInTheSameMillisecond() {
+        // A batch of five in one millisecond, between two older and one newer token
+        index.add(token("00000000-0000-0000-0000-000000000001", ISSUED.minusMinutes(2)));
+        index.add(token("00000000-0000-0000-0000-000000000002", ISSUED.minusMinutes(1)));
+        for (int i = 3; i <= 7; i++) {
+            index.add(token("00000000-0000-0000-0000-00000000000" + i, ISSUED));
+        }
+        index.add(token("00000000-0000-0000-0000-000000000008", ISSUED.plusMinutes(1)));
+
+        List<String> served = new ArrayList<>();
+        PatientTokenIndex.Cursor cursor = null;
+        int pages = 0;
+        do {
+            List<PatientTokenIndex.Entry> page = index.page("P1", 0, cursor, 3);
+            page.forEach(entry -> served.add(entry.tokenId().substring(35)));
+            cursor = PatientTokenIndex.Cursor.parse(PatientTokenIndex.nextCursor(page, 3));
+            pages++;
+        } while (cursor != null);
+
+        assertThat(served).containsExactly("8", "7", "6", "5", "4", "3", "2", "1");
+        assertThat(pages).isEqualTo(3);
+    }
+
+    @Test
+    void archivedEntriesKeepTheirPlaceInTheOrder() {
+        QueueToken first = token("00000000-0000-0000-0000-000000000001", ISSUED);
+        QueueToken second = token("00000000-0000-0000-0000-000000000002", ISSUED);
+        index.add(first);
+        index.add(second);
+        index.markArchived(List.of(second), 0);
+
+        List<PatientTokenIndex.Entry> page = index.page("P1", 0, null, 1);
+        List<PatientTokenIndex.Entry> next = index.page("P1", 0,
+                PatientTokenIndex.Cursor.parse(PatientTokenIndex.nextCursor(page, 1)), 1);
+
+        assertThat(page).extracting(PatientTokenIndex.Entry::tokenId).containsExactly(second.getId());
+        assertThat(page.get(0).archivedDate()).isEqualTo(LocalDate.of(2026, 3, 2));
+        assertThat(next).extracting(PatientTokenIndex.Entry::tokenId).containsExactly(first.getId());
+    }
+
+    @Test
+    void backfillIndexesExistingTokensOnce() {
+        QueueToken token = token("00000000-0000-0000-0000-000000000001", ISSUED);
+        redisTemplate.opsForSet().add("QueueToken", token.getId());
+        when(tokenRepository.findAllById(anyIterable())).thenReturn(List.of(token));
+
+        index.backfill();
+        index.backfill();
+
+        assertThat(index.page("P1", 0, null, 10))
+                .extracting(PatientTokenIndex.Entry::tokenId)
+                .containsExactly(token.getId());
+        verify(tokenRepository, times(1)).findAllById(anyIterable());
+    }
+
+    private static QueueToken token(String id, LocalDateTime issueTime) {
+        return QueueToken.builder()
+                .id(id)
+                .patientId("P1")
+                .date(issueTime.toLocalDate())
+                .issueTime(issueTime)
+                .build();
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.queue_service.service;
+
+import com.example.queue_service.model.QueueToken;
+import com.example.queue_service.model.QueueToken.TokenPriority;
+import com.example.queue_service.repository.QueueTokenRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TokenIssueScriptTest extends EmbeddedRedisTest {
+
+    private static final String DOCTOR_ID = "doc-1";
+    private static final LocalDate DATE = LocalDate.now();
+
+    private final QueueTokenRepository tokenRepository = mock(QueueTokenRepository.class);
+    private final TokenIssuer tokenIssuer =
+            new TokenIssuer(redisTemplate, new TokenSequenceService(redisTemplate, tokenRepository));
+
+    @Test
+    void secondTokenForWaitingPatientIsDuplicate() {
+        TokenIssuer.Issued first = tokenIssuer.issue(DOCTOR_ID, DATE, List.of(request("p1", TokenPriority.NORMAL)));
+        TokenIssuer.Issued second = tokenIssuer.issue(DOCTOR_ID, DATE, List.of(request("p1", TokenPriority.NORMAL)));
+
+        String firstId = first.outcomes().get(0).token().getId();
+        assertThat(second.outcomes().get(0).issued()).isFalse();
+        assertThat(second.outcomes().get(0).existingTokenId()).isEqualTo(firstId);
+        assertThat(redisTemplate.opsForZSet().size(TokenQueueService.waitingKey(DOCTOR_ID, DATE))).isEqualTo(1);
+    }
+
+    @Test
+    void duplicateWithinOneBatchKeepsFirstRequest() {
+        TokenIssuer.Issued issued = tokenIssuer.issue(DOCTOR_ID, DATE, List.of(
+                request("p1", TokenPriority.NORMAL), request("p1", TokenPriority.HIGH)));
+
+        assertThat(issued.outcomes().get(0).issued()).isTrue();
+        assertThat(issued.outcomes().get(1).issued()).isFalse();
+        assertThat(issued.outcomes().get(1).existingTokenId()).isEqualTo(issued.outcomes().get(0).token().getId());
+    }
+
+    @Test
+    void retryOfCommittedRequestIsReportedIssued() {
+        TokenIssuer.Prepared prepared = tokenIssuer.prepare(DOCTOR_ID, DATE, List.of(
+                request("p1", TokenPriority.NORMAL), request("p2", TokenPriority.NORMAL)));
+
+        TokenIssuer.Issued first = tokenIssuer.parse(prepared, tokenIssuer.execute(prepared));
+        TokenIssuer.Issued retried = tokenIssuer.parse(prepared, tokenIssuer.execute(prepared));
+
+        assertThat(retried.outcomes()).allMatch(TokenIssuer.Outcome::issued);
+        assertThat(retried.outcomes()).extracting(outcome -> outcome.token().getTokenNumber())
+                .containsExactly(1, 2);
+        assertThat(retried.outcomes()).extracting(TokenIssuer.Outcome::position)
+                .containsExactly(1, 2);
+        assertThat(retried.queueVersion()).isEqualTo(first.queueVersion());
+        assertThat(redisTemplate.opsForValue().get(TokenSequenceService.key(DOCTOR_ID, DATE))).isEqualTo("2");
+    }
+
+    @Test
+    void calledPatientCanTakeNewToken() {
+        TokenQueueService tokenQueueService = new TokenQueueService(redisTemplate, tokenRepository);
+        String firstId = tokenIssuer.issue(DOCTOR_ID, DATE, List.of(request("p1", TokenPriority.NORMAL)))
+                .outcomes().get(0).token().getId();
+
+        assertThat(tokenQueueService.pollNext(DOCTOR_ID, DATE)).get()
+                .extracting(TokenQueueService.Popped::tokenId).isEqualTo(firstId);
+        TokenIssuer.Issued second = tokenIssuer.issue(DOCTOR_ID, DATE, List.of(request("p1", TokenPriority.NORMAL)));
+
+        assertThat(second.outcomes().get(0).issued()).isTrue();
+        assertThat(redisTemplate.opsForHash().hasKey(TokenQueueService.holdersKey(DOCTOR_ID, DATE), "token:" + firstId))
+                .isFalse();
+    }
+
+    @Test
+    void higherPriorityIsQueuedAhead() {
+        TokenIssuer.Issued issued = tokenIssuer.issue(DOCTOR_ID, DATE, List.of(
+                request("p1", TokenPriority.NORMAL), request("p2", TokenPriority.LOW),
+                request("p3", TokenPriority.EMERGENCY)));
+
+        List<String> ids = issued.outcomes().stream().map(outcome -> outcome.token().getId()).toList();
+        assertThat(issued.outcomes()).extracting(outcome -> outcome.token().getTokenNumber())
+                .containsExactly(1, 2, 3);
+        assertThat(issued.outcomes().get(2).position()).isEqualTo(1);
+        assertThat(redisTemplate.opsForZSet().range(TokenQueueService.waitingKey(DOCTOR_ID, DATE), 0, -1))
+                .containsExactly(ids.get(2), ids.get(0), ids.get(1));
+    }
+
+    @Test
+    void missingSequenceIsSeededFromIssuedTokens() {
+        when(tokenRepository.findByDoctorIdAndDateOrderByTokenNumberAsc(DOCTOR_ID, DATE))
+                .thenReturn(List.of(QueueToken.builder().tokenNumber(7).build()));
+
+        TokenIssuer.Issued issued = tokenIssuer.issue(DOCTOR_ID, DATE, List.of(request("p1", TokenPriority.NORMAL)));
+
+        assertThat(issued.outcomes().get(0).token().getTokenNumber()).isEqualTo(8);
+        assertThat(redisTemplate.opsForValue().get(TokenSequenceService.key(DOCTOR_ID, DATE))).isEqualTo("8");
+    }
+
+    @Test
+    void pastDateIsIssuedAndKeptAlive() {
+        LocalDate yesterday = DATE.minusDays(1);
+
+        TokenIssuer.Issued issued = tokenIssuer.issue(DOCTOR_ID, yesterday,
+                List.of(request("p1", TokenPriority.NORMAL)));
+
+        assertThat(issued.outcomes().get(0).issued()).isTrue();
+        assertThat(redisTemplate.getExpire(TokenQueueService.waitingKey(DOCTOR_ID, yesterday))).isPositive();
+    }
+
+    @Test
+    void tokenIsWrittenInRepositoryLayout() {
+        TokenIssuer.Issued issued = tokenIssuer.issue(DOCTOR_ID, DATE, List.of(
+                new TokenIssuer.Request("p1", "dep-1", null, TokenPriority.NORMAL)));
+
+        String id = issued.outcomes().get(0).token().getId();
+        assertThat(redisTemplate.opsForHash().get("QueueToken:" + id, "status")).isEqualTo("WAITING");
+        assertThat(redisTemplate.opsForSet().members("QueueToken:" + id + ":idx")).containsExactlyInAnyOrder(
+                "QueueToken:patientId:p1", "QueueToken:doctorId:" + DOCTOR_ID, "QueueToken:date:" + DATE,
+                "QueueToken:status:WAITING", "QueueToken:departmentId:dep-1");
+        assertThat(redisTemplate.opsForSet().isMember("QueueToken", id)).isTrue();
+        assertThat(redisTemplate.opsForZSet().score(PatientTokenIndex.key("p1"), id)).isNotNull();
+        assertThat(redisTemplate.opsForHash().get(TokenQueueService.holdersKey(DOCTOR_ID, DATE), "token:" + id))
+                .isEqualTo("p1");
+    }
+
+    private static TokenIssuer.Request request(String patientId, TokenPriority priority) {
+        return new TokenIssuer.Request(patientId, null, null, priority);
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.queue_service.service;
+
+import com.example.queue_service.model.QueueToken;
+import com.example.queue_service.model.QueueToken.TokenStatus;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenTransitionScriptTest extends EmbeddedRedisTest {
+
+    private final TokenQueueService tokenQueueService = new TokenQueueService(redisTemplate, null);
+
+    @Test
+    void appliesTransitionAndMovesStatusIndex() {
+        QueueToken token = stored("t1", TokenStatus.CALLED);
+        LocalDateTime startedAt = LocalDateTime.of(2026, 3, 2, 9, 30);
+
+        TokenQueueService.Transition transition = tokenQueueService.transition(token, TokenStatus.IN_PROGRESS,
+                "consultationStartTime", startedAt, TokenStatus.CALLED);
+
+        assertThat(transition.applied()).isTrue();
+        assertThat(transition.previous()).isEqualTo(TokenStatus.CALLED);
+        assertThat(redisTemplate.opsForHash().get("QueueToken:t1", "status")).isEqualTo("IN_PROGRESS");
+        assertThat(redisTemplate.opsForHash().get("QueueToken:t1", "consultationStartTime"))
+                .isEqualTo(startedAt.toString());
+        assertThat(redisTemplate.opsForSet().isMember("QueueToken:status:CALLED", "t1")).isFalse();
+        assertThat(redisTemplate.opsForSet().isMember("QueueToken:status:IN_PROGRESS", "t1")).isTrue();
+        assertThat(redisTemplate.opsForSet().members("QueueToken:t1:idx"))
+                .containsExactly("QueueToken:status:IN_PROGRESS");
+    }
+
+    @Test
+    void repeatedCompleteIsRejected() {
+        QueueToken token = stored("t1", TokenStatus.IN_PROGRESS);
+
+        TokenQueueService.Transition first = tokenQueueService.transition(token, TokenStatus.COMPLETED,
+                null, null, TokenStatus.CALLED, TokenStatus.IN_PROGRESS);
+        TokenQueueService.Transition second = tokenQueueService.transition(token, TokenStatus.COMPLETED,
+                null, null, TokenStatus.CALLED, TokenStatus.IN_PROGRESS);
+
+        assertThat(first.applied()).isTrue();
+        assertThat(first.previous()).isEqualTo(TokenStatus.IN_PROGRESS);
+        assertThat(second.applied()).isFalse();
+        assertThat(second.previous()).isEqualTo(TokenStatus.COMPLETED);
+    }
+
+    @Test
+    void cancelOfStartedTokenIsRejected() {
+        QueueToken token = stored("t1", TokenStatus.IN_PROGRESS);
+
+        TokenQueueService.Transition transition = tokenQueueService.transition(token, TokenStatus.CANCELED,
+                null, null, TokenStatus.WAITING, TokenStatus.CALLED);
+
+        assertThat(transition.applied()).isFalse();
+        assertThat(transition.previous()).isEqualTo(TokenStatus.IN_PROGRESS);
+        assertThat(redisTemplate.opsForHash().get("QueueToken:t1", "status")).isEqualTo("IN_PROGRESS");
+        assertThat(redisTemplate.opsForSet().isMember("QueueToken:status:CANCELED", "t1")).isFalse();
+    }
+
+    @Test
+    void missingTokenIsRejected() {
+        TokenQueueService.Transition transition = tokenQueueService.transition(
+                QueueToken.builder().id("gone").build(), TokenStatus.CALLED, null, null, TokenStatus.WAITING);
+
+        assertThat(transition.applied()).isFalse();
+        assertThat(transition.previous()).isNull();
+        assertThat(redisTemplate.hasKey("QueueToken:gone")).isFalse();
+    }
+
+    private QueueToken stored(String id, TokenStatus status) {
+        redisTemplate.opsForHash().put("QueueToken:" + id, "status", status.name());
+        redisTemplate.opsForSet().add("QueueToken:status:" + status.name(), id);
+        redisTemplate.opsForSet().add("QueueToken:" + id + ":idx", "QueueToken:status:" + status.name());
+        return QueueToken.builder().id(id).status(status).build();
+    }
+}